@@ -0,0 +1,76 @@
+package com.app.lurnityBackend.config;
+
+import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.model.CourseChange;
+import com.app.lurnityBackend.model.Order;
+import com.app.lurnityBackend.model.RefreshToken;
+import com.app.lurnityBackend.model.User;
+import com.app.lurnityBackend.model.WebhookEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spring Boot leaves auto-index-creation off, so the @Indexed / @CompoundIndex
+ * annotations on our documents are resolved and ensured here at startup.
+ * A failed build stops the application: running without e.g. a unique index would
+ * quietly drop the guarantee it gives.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class MongoIndexConfig {
+
+    // Documents whose annotated indexes must exist before we serve traffic
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(
+            Course.class,
+            CourseChange.class,
+            Order.class,
+            RefreshToken.class,
+            User.class,
+            WebhookEvent.class
+    );
+
+    // How to repair existing data that an index cannot be built on
+    private static final Map<String, String> FIXES = Map.of(
+            "user_course_pending", "start once with migrations.pending-order-dedup.enabled=true "
+                    + "to cancel duplicate PENDING orders per user and course"
+    );
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+
+        for (Class<?> document : INDEXED_DOCUMENTS) {
+            IndexOperations indexOps = mongoTemplate.indexOps(document);
+            for (IndexDefinition index : resolver.resolveIndexFor(document)) {
+                ensureIndex(document, indexOps, index);
+            }
+        }
+    }
+
+    private void ensureIndex(Class<?> document, IndexOperations indexOps, IndexDefinition index) {
+        try {
+            indexOps.createIndex(index);
+        } catch (RuntimeException e) {
+            String name = index.getIndexOptions().getString("name");
+            String message = "Could not build index " + name + " " + index.getIndexKeys().toJson()
+                    + " for " + document.getSimpleName() + ": " + e.getMessage()
+                    + ". Fix: " + FIXES.getOrDefault(name, "repair the documents it rejects, or drop the conflicting index");
+            log.error(message);
+            throw new IllegalStateException(message, e);
+        }
+    }
+}
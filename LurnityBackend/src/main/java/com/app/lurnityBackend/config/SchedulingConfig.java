@@ -0,0 +1,10 @@
+package com.app.lurnityBackend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs (@Scheduled), e.g. the Stripe webhook queue poller
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,7 +1,12 @@
 package com.app.lurnityBackend.config;
 
 import com.app.lurnityBackend.security.JwtAuthenticationFilter;
+import com.app.lurnityBackend.security.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -15,6 +20,7 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 
+@Slf4j
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity  // ✅ Enable @PreAuthorize
@@ -22,25 +28,61 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // Async results (checkout) are re-dispatched after the original request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
         http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+        // After the JWT filter, so per-user limits see the authenticated caller
+        http.addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
 
+    // Only run the rate limiter inside the security chain (after the JWT filter),
+    // not a second time as a plain servlet filter ahead of it
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    // Cost factor calibrated on this hardware at startup; existing hashes are upgraded on login
+    @Bean
+    public PasswordEncoder passwordEncoder(
+            @Value("${security.password.target-hash-ms:250}") long targetHashMs,
+            @Value("${security.password.max-strength:14}") int maxStrength) {
+        return new BCryptPasswordEncoder(calibrateBCryptStrength(targetHashMs, maxStrength));
+    }
+
+    // Highest cost whose hash still fits in the target time, never below BCrypt's default of 10.
+    // Each +1 doubles the work, so one timed hash at 10 is enough to extrapolate.
+    private static int calibrateBCryptStrength(long targetHashMs, int maxStrength) {
+        int strength = 10;
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(strength);
+        probe.encode("calibration"); // warm-up
+
+        long start = System.nanoTime();
+        probe.encode("calibration");
+        double hashMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        while (strength < maxStrength && hashMs * 2 <= targetHashMs) {
+            hashMs *= 2;
+            strength++;
+        }
+        log.info("BCrypt strength {} (~{} ms per hash)", strength, Math.round(hashMs));
+        return strength;
     }
 
     @Bean
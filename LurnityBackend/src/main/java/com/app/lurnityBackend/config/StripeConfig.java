@@ -0,0 +1,33 @@
+package com.app.lurnityBackend.config;
+
+import com.stripe.StripeClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * One StripeClient for the whole application, instead of assigning the static
+ * Stripe.apiKey on every request. These are the client-wide defaults; individual calls
+ * can tighten them with RequestOptions (see OrderService for checkout).
+ * <p>
+ * The client uses Stripe's HttpURLConnection transport, which reuses TLS connections
+ * through the JDK keep-alive cache. Its size is JVM-wide, so it is set at launch
+ * (-Dhttp.maxConnections=50) rather than from here.
+ */
+@Configuration
+public class StripeConfig {
+
+    @Bean
+    public StripeClient stripeClient(
+            @Value("${stripe.api.key}") String apiKey,
+            @Value("${stripe.client.connect-timeout-ms:5000}") int connectTimeoutMs,
+            @Value("${stripe.client.read-timeout-ms:20000}") int readTimeoutMs,
+            @Value("${stripe.client.max-network-retries:2}") int maxNetworkRetries) {
+        return StripeClient.builder()
+                .setApiKey(apiKey)
+                .setConnectTimeout(connectTimeoutMs)
+                .setReadTimeout(readTimeoutMs)
+                .setMaxNetworkRetries(maxNetworkRetries)
+                .build();
+    }
+}
@@ -4,17 +4,21 @@ import com.app.lurnityBackend.dto.LoginRequest;
 import com.app.lurnityBackend.dto.LoginResponse;
 import com.app.lurnityBackend.dto.SignupRequest;
 import com.app.lurnityBackend.dto.SignupResponse;
+import com.app.lurnityBackend.security.JwtPrincipal;
+import com.app.lurnityBackend.security.TokenEpochService;
 import com.app.lurnityBackend.service.AuthService;
 import com.app.lurnityBackend.service.TokenService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -23,21 +27,19 @@ public class AuthController {
 
     private final AuthService authService;
     private final TokenService tokenService;
+    private final TokenEpochService tokenEpochService;
 
     // ✅ Signup endpoint
+    // Password hashing runs on its own bounded pool, so the servlet thread is released meanwhile
     @PostMapping("/signup")
-    public ResponseEntity<SignupResponse> signup(@RequestBody SignupRequest request) {
-        SignupResponse response = authService.signup(request);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<SignupResponse>> signup(@RequestBody SignupRequest request) {
+        return authService.signup(request).thenApply(ResponseEntity::ok);
     }
 
     // ---------------- LOGIN ----------------
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest request) {
-            // Call AuthService login method
-            LoginResponse response = authService.login(request);
-            return ResponseEntity.ok(response);
-
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@RequestBody LoginRequest request) {
+        return authService.login(request).thenApply(ResponseEntity::ok);
     }
 
     // ------------------- REFRESH ACCESS TOKEN -------------------
@@ -46,8 +48,10 @@ public class AuthController {
         String refreshToken = request.get("refreshToken");
         Map<String, String> response = new HashMap<>();
         try {
-            String newAccessToken = tokenService.refreshAccessToken(refreshToken);
-            response.put("accessToken", newAccessToken);
+            // Refresh tokens are single use: the client must keep the new one
+            TokenService.TokenPair tokens = tokenService.refreshAccessToken(refreshToken);
+            response.put("accessToken", tokens.accessToken());
+            response.put("refreshToken", tokens.refreshToken());
             return ResponseEntity.ok(response);
         } catch (ResponseStatusException e) {
             response.put("message", e.getReason());
@@ -73,10 +77,17 @@ public class AuthController {
 
     // ------------------- LOGOUT ALL DEVICES -------------------
     @PostMapping("/logout-all")
-    public ResponseEntity<Map<String, String>> logoutAll(@RequestBody Map<String, String> request) {
-        String userId = request.get("userId"); // or extract from access token
+    public ResponseEntity<Map<String, String>> logoutAll(Authentication authentication) {
+        // Only ever the caller's own sessions: the user id comes from the verified access token
+        if (authentication == null || !(authentication.getPrincipal() instanceof JwtPrincipal principal)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Authentication required");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+        String userId = principal.userId();
         try {
             tokenService.deleteAllByUserId(userId);
+            tokenEpochService.revokeAll(userId); // access tokens too, on every node
             Map<String, String> response = new HashMap<>();
             response.put("message", "Logged out from all devices successfully");
             return ResponseEntity.ok(response);
@@ -1,15 +1,27 @@
 package com.app.lurnityBackend.controller;
 
+import com.app.lurnityBackend.dto.CourseAccessDto;
 import com.app.lurnityBackend.dto.CourseRequestDto;
 import com.app.lurnityBackend.dto.CourseResponseDto;
+import com.app.lurnityBackend.dto.CourseUpdateDto;
+import com.app.lurnityBackend.model.CourseSort;
+import com.app.lurnityBackend.security.JwtPrincipal;
+import com.app.lurnityBackend.service.CourseCatalogCache;
 import com.app.lurnityBackend.service.CourseService;
+import com.app.lurnityBackend.service.EntitlementService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/courses")
@@ -17,26 +29,76 @@ import java.util.List;
 public class CourseController {
 
     private final CourseService courseService;
+    private final EntitlementService entitlementService;
 
     // ✅ List all courses (any authenticated user)
+    // Without query parameters: the cached, already serialized catalog (List<CourseResponseDto>).
+    // With sort / minPrice / maxPrice / cursor / limit: one keyset page (CoursePageDto).
+    // A price range implies sort=price and cannot be combined with another sort.
     @GetMapping
-    public ResponseEntity<List<CourseResponseDto>> getAllCourses(Authentication authentication) {
+    public ResponseEntity<?> getAllCourses(
+            Authentication authentication,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         boolean isAdmin = authentication.getAuthorities().stream()
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
 
-        return ResponseEntity.ok(courseService.getAllCourses(isAdmin));
+        if (sort == null && minPrice == null && maxPrice == null && cursor == null && limit == null) {
+            return json(courseService.getAllCourses(isAdmin), acceptEncoding);
+        }
+
+        CourseSort order;
+        try {
+            order = CourseSort.from(sort);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be price, title or newest");
+        }
+        return ResponseEntity.ok(courseService.getCoursePage(isAdmin, order, minPrice, maxPrice, cursor, limit));
+    }
+
+    // ✅ Search courses by title/description; the last word also matches as a prefix
+    @GetMapping("/search")
+    public ResponseEntity<List<CourseResponseDto>> searchCourses(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
+
+        return ResponseEntity.ok(courseService.searchCourses(query, limit, isAdmin));
     }
 
-    // ✅ Get course details
+    // ✅ Get course details (CourseResponseDto, pre-serialized)
     @GetMapping("/{id}")
-    public ResponseEntity<CourseResponseDto> getCourseById(
+    public ResponseEntity<byte[]> getCourseById(
+            @PathVariable String id,
+            Authentication authentication,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
+
+        return json(courseService.getCourseById(id, isAdmin), acceptEncoding);
+    }
+
+    // ✅ Does the caller own this course? (answered from the entitlement cache)
+    @GetMapping("/{id}/access")
+    public ResponseEntity<CourseAccessDto> getCourseAccess(
             @PathVariable String id,
             Authentication authentication) {
 
         boolean isAdmin = authentication.getAuthorities().stream()
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
 
-        return ResponseEntity.ok(courseService.getCourseById(id, isAdmin));
+        // Stateless principals already carry the user id, which skips the email -> id lookup
+        boolean hasAccess = isAdmin || (authentication.getPrincipal() instanceof JwtPrincipal principal
+                ? entitlementService.hasPurchased(principal.userId(), id)
+                : entitlementService.hasPurchasedByEmail(authentication.getName(), id));
+        return ResponseEntity.ok(new CourseAccessDto(id, hasAccess));
     }
 
     // ✅ Add new course (only ADMIN)
@@ -46,6 +108,22 @@ public class CourseController {
         return ResponseEntity.ok(courseService.createCourse(request));
     }
 
+    // ✅ Replace a course's fields (only ADMIN); body must carry the version last read
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CourseResponseDto> replaceCourse(@PathVariable String id,
+                                                           @RequestBody CourseUpdateDto request) {
+        return ResponseEntity.ok(courseService.updateCourse(id, request, false));
+    }
+
+    // ✅ Change only the given fields (only ADMIN), same version check
+    @PatchMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CourseResponseDto> patchCourse(@PathVariable String id,
+                                                         @RequestBody CourseUpdateDto request) {
+        return ResponseEntity.ok(courseService.updateCourse(id, request, true));
+    }
+
     // ✅ Delete course (only ADMIN)
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
@@ -53,6 +131,53 @@ public class CourseController {
         courseService.deleteCourse(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Sends the pre-gzipped body when there is one and the client accepts it.
+    // With the ETag set, Spring answers a matching If-None-Match with 304 and no body.
+    private static ResponseEntity<byte[]> json(CourseCatalogCache.Payload payload, String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING, HttpHeaders.AUTHORIZATION)
+                .cacheControl(CacheControl.noCache().cachePrivate());
+
+        if (payload.gzip() != null && acceptsGzip(acceptEncoding)) {
+            return response.eTag(payload.gzipEtag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(payload.gzip());
+        }
+        return response.eTag(payload.etag()).body(payload.json());
+    }
+
+    // Accept-Encoding with q-values: "gzip;q=0" is a refusal, and "*" covers gzip unless it is named
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0; // unparseable weight: don't risk sending what the client can't read
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = q;
+            } else if (name.equals("*")) {
+                wildcard = q;
+            }
+        }
+        Double weight = gzip != null ? gzip : wildcard;
+        return weight != null && weight > 0;
+    }
 }
 
 
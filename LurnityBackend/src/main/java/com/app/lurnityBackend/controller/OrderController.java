@@ -1,9 +1,10 @@
 package com.app.lurnityBackend.controller;
 
+import com.app.lurnityBackend.dto.OrderPageDto;
 import com.app.lurnityBackend.dto.OrderRequestDto;
 import com.app.lurnityBackend.dto.OrderResponseDto;
+import com.app.lurnityBackend.model.PaymentStatus;
 import com.app.lurnityBackend.service.OrderService;
-import com.stripe.exception.StripeException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -11,6 +12,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -20,31 +22,35 @@ public class OrderController {
     private final OrderService orderService;
 
     // ✅ User creates an order (buy course)
+    // Runs on the checkout pool so a slow Stripe call does not hold a servlet thread.
+    // Repeats with the same Idempotency-Key get the first response back.
     @PostMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<OrderResponseDto> createOrder(
+    public CompletableFuture<ResponseEntity<OrderResponseDto>> createOrder(
             Authentication authentication,
-            @RequestBody OrderRequestDto request) throws StripeException {
+            @RequestBody OrderRequestDto request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         String userEmail = authentication.getName();
         boolean isAdmin = authentication.getAuthorities().stream()
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
 
-        OrderResponseDto orderResponse = orderService.createOrder(userEmail, request,isAdmin);
         // clientSecret is returned in orderResponse for frontend payment confirmation
-        return ResponseEntity.ok(orderResponse);
+        return orderService.createOrderAsync(userEmail, request, isAdmin, idempotencyKey)
+                .thenApply(ResponseEntity::ok);
     }
 
     // ✅ Retry payment
     @PostMapping("/{id}/retry")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<OrderResponseDto> retryPayment(
+    public CompletableFuture<ResponseEntity<OrderResponseDto>> retryPayment(
             @PathVariable String id,
-            Authentication authentication) throws StripeException {
+            Authentication authentication,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         String userEmail = authentication.getName();
         boolean isAdmin = authentication.getAuthorities().stream()
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
-        OrderResponseDto response = orderService.retryPayment(id, userEmail,isAdmin);
-        return ResponseEntity.ok(response);
+        return orderService.retryPaymentAsync(id, userEmail, isAdmin, idempotencyKey)
+                .thenApply(ResponseEntity::ok);
     }
 
     // ✅ User fetches only their orders
@@ -57,15 +63,21 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getMyOrders(userEmail,isAdmin));
     }
 
-    // ✅ Admin can view all orders
+    // ✅ Admin can view all orders (keyset paginated, pass nextCursor back as cursor)
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<OrderResponseDto>> getAllOrders(Authentication authentication) {
+    public ResponseEntity<OrderPageDto> getAllOrders(
+            Authentication authentication,
+            @RequestParam(required = false) PaymentStatus status,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String courseId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         String adminEmail = authentication.getName();
         boolean isAdmin = authentication.getAuthorities().stream()
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
 
-        return ResponseEntity.ok(orderService.getAllOrders(adminEmail, isAdmin));
+        return ResponseEntity.ok(orderService.getAllOrders(adminEmail, isAdmin, status, userId, courseId, cursor, limit));
     }
 
     // ✅ User cancels their order / Admin cancels any order
@@ -1,27 +1,39 @@
 package com.app.lurnityBackend.controller;
 
-import com.app.lurnityBackend.service.StripeWebhookService;
+import com.app.lurnityBackend.service.WebhookEventQueue;
+import com.google.gson.JsonParseException;
+import com.stripe.exception.SignatureVerificationException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/stripe")
 @RequiredArgsConstructor
 public class StripeWebhookController {
 
-    private final StripeWebhookService webhookService;
+    private final WebhookEventQueue webhookEventQueue;
 
+    // Verify + queue, then acknowledge straight away; the work happens on the webhook workers
     @PostMapping("/webhook")
     public ResponseEntity<String> handleStripeWebhook(
             @RequestBody String payload,
             @RequestHeader("Stripe-Signature") String sigHeader) {
 
         try {
-            webhookService.handleWebhook(payload, sigHeader);
+            webhookEventQueue.enqueue(payload, sigHeader);
             return ResponseEntity.ok("success");
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Webhook error: " + e.getMessage());
+        } catch (SignatureVerificationException | JsonParseException e) {
+            // ✅ Not a genuine Stripe event: a redelivery wouldn't change that
+            return ResponseEntity.badRequest().body("Invalid webhook");
+        } catch (DataAccessException e) {
+            // ✅ Genuine but not stored: a 5xx makes Stripe redeliver it later
+            log.error("Could not queue Stripe webhook", e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Webhook could not be stored");
         }
     }
 }
@@ -0,0 +1,13 @@
+package com.app.lurnityBackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseAccessDto {
+    private String courseId;
+    private boolean hasAccess;     // true once the course is paid for (always true for admins)
+}
@@ -14,4 +14,5 @@ public class CourseResponseDto {
     private Double price;
     private String contentUrl;
     private String imageUrl;
+    private Long version;       // send back on PUT/PATCH
 }
@@ -0,0 +1,17 @@
+package com.app.lurnityBackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data   // generates getters, setters, toString, equals, hashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseUpdateDto {
+    private String title;
+    private String description;
+    private Double price;
+    private String contentUrl;
+    private String imageUrl;
+    private Long version;       // the version the client last read (optimistic locking)
+}
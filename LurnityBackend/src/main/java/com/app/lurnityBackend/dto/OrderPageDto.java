@@ -0,0 +1,15 @@
+package com.app.lurnityBackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageDto {
+    private List<OrderResponseDto> orders;
+    private String nextCursor;     // null when there are no more pages
+}
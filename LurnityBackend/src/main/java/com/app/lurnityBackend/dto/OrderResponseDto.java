@@ -12,7 +12,7 @@ import java.util.Date;
 public class OrderResponseDto {
     private String id;
     private String userId;         // userId
-    private Course course;         // full course object
+    private Course course;         // snapshot + current display fields from the course cache
     private PaymentStatus paymentStatus;
     private String paymentId;      // Stripe PaymentIntent ID
     private String clientSecret;   // Stripe client secret
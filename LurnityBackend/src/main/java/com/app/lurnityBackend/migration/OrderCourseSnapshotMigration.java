@@ -0,0 +1,90 @@
+package com.app.lurnityBackend.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One-off rewrite of orders that still embed the full Course document into the
+ * compact CourseSnapshot shape (course._id, title, price, version).
+ * <p>
+ * Enable with migrations.order-course-snapshot.enabled=true for a single start-up.
+ * It walks the orders collection in _id order, batch by batch, so it is safe to stop
+ * and re-run; orders that are already compact are not touched.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "migrations.order-course-snapshot.enabled", havingValue = "true")
+public class OrderCourseSnapshotMigration implements ApplicationRunner {
+
+    private static final String ORDERS = "orders";
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+
+    public OrderCourseSnapshotMigration(MongoTemplate mongoTemplate,
+                                        @Value("${migrations.order-course-snapshot.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Object lastId = null;
+        long migrated = 0;
+
+        while (true) {
+            Criteria legacy = new Criteria().orOperator(
+                    Criteria.where("course.description").exists(true),
+                    Criteria.where("course.contentUrl").exists(true),
+                    Criteria.where("course.imageUrl").exists(true),
+                    Criteria.where("course.version").exists(false)
+            );
+            Query query = lastId == null
+                    ? Query.query(legacy)
+                    : Query.query(new Criteria().andOperator(Criteria.where("_id").gt(lastId), legacy));
+            query.fields().include("_id").include("course.version");
+            query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+
+            List<Document> batch = mongoTemplate.find(query, Document.class, ORDERS);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ORDERS);
+            for (Document order : batch) {
+                Update update = new Update()
+                        .unset("course.description")
+                        .unset("course.contentUrl")
+                        .unset("course.imageUrl");
+
+                // Legacy orders predate course versions
+                Document course = order.get("course", Document.class);
+                if (course != null && !course.containsKey("version")) {
+                    update.set("course.version", 0L);
+                }
+
+                bulk.updateOne(Query.query(Criteria.where("_id").is(order.get("_id"))), update);
+            }
+            bulk.execute();
+
+            migrated += batch.size();
+            lastId = batch.get(batch.size() - 1).get("_id");
+            log.info("Order course snapshot migration: {} orders rewritten", migrated);
+        }
+
+        log.info("Order course snapshot migration finished, {} orders rewritten", migrated);
+    }
+}
@@ -0,0 +1,121 @@
+package com.app.lurnityBackend.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.Fields;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * One-off clean-up of users holding several PENDING orders for the same course (orphans of
+ * double clicks and abandoned checkouts), which the unique user_course_pending index rejects.
+ * <p>
+ * Enable with migrations.pending-order-dedup.enabled=true for a single start-up. Runners
+ * finish before MongoIndexConfig builds the indexes, so the index build then succeeds.
+ * Per (user, course) the newest PENDING order is kept and the others are CANCELLED. Their
+ * PaymentIntents are added to the kept order's paymentIds, so a customer who still pays one
+ * of them gets the course. Re-running finds nothing left to do.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "migrations.pending-order-dedup.enabled", havingValue = "true")
+public class PendingOrderDedupMigration implements ApplicationRunner {
+
+    private static final String ORDERS = "orders";
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+
+    public PendingOrderDedupMigration(MongoTemplate mongoTemplate,
+                                      @Value("${migrations.pending-order-dedup.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // (userId, course._id) groups with more than one PENDING order, newest order first
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("paymentStatus").is("PENDING")),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "createdAt", "_id")),
+                Aggregation.group(Fields.from(Fields.field("userId"), Fields.field("courseId", "course._id")))
+                        .push(new Document("orderId", "$_id")
+                                .append("paymentId", "$paymentId")
+                                .append("paymentIds", "$paymentIds"))
+                        .as("orders"),
+                Aggregation.match(Criteria.where("orders.1").exists(true))
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        long groups = 0;
+        long cancelled = 0;
+        List<Document> batch = new ArrayList<>();
+        try (Stream<Document> stream = mongoTemplate.aggregateStream(duplicates, ORDERS, Document.class)) {
+            for (Document group : (Iterable<Document>) stream::iterator) {
+                batch.add(group);
+                if (batch.size() == batchSize) {
+                    cancelled += merge(batch);
+                    groups += batch.size();
+                    batch.clear();
+                    log.info("Pending order de-duplication: {} groups merged, {} orders cancelled", groups, cancelled);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            cancelled += merge(batch);
+            groups += batch.size();
+        }
+
+        log.info("Pending order de-duplication finished: {} groups merged, {} orders cancelled", groups, cancelled);
+    }
+
+    // Keep the first (newest) order of each group, cancel the rest and move their intents onto it
+    private long merge(List<Document> groups) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ORDERS);
+        long cancelled = 0;
+
+        for (Document group : groups) {
+            List<Document> orders = group.getList("orders", Document.class);
+            Object keptId = orders.get(0).get("orderId");
+
+            List<Object> olderIds = new ArrayList<>();
+            List<String> intents = new ArrayList<>();
+            for (Document order : orders.subList(1, orders.size())) {
+                olderIds.add(order.get("orderId"));
+                if (order.getString("paymentId") != null) {
+                    intents.add(order.getString("paymentId"));
+                }
+                List<String> paymentIds = order.getList("paymentIds", String.class);
+                if (paymentIds != null) {
+                    intents.addAll(paymentIds);
+                }
+            }
+
+            // Only orders still PENDING: one that got paid meanwhile is left alone
+            bulk.updateMulti(Query.query(Criteria.where("_id").in(olderIds).and("paymentStatus").is("PENDING")),
+                    new Update().set("paymentStatus", "CANCELLED"));
+            if (!intents.isEmpty()) {
+                bulk.updateOne(Query.query(Criteria.where("_id").is(keptId)),
+                        new Update().addToSet("paymentIds").each(intents.toArray()));
+            }
+            cancelled += olderIds.size();
+        }
+
+        bulk.execute();
+        return cancelled;
+    }
+}
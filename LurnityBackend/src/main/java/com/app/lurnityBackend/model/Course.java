@@ -4,12 +4,16 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "courses")
+// Keyset pages of the catalog: sort field, then _id as the tie-breaker
+@CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}")
+@CompoundIndex(name = "title_id", def = "{'title': 1, '_id': 1}")
 public class Course {
 
     @Id
@@ -20,4 +24,5 @@ public class Course {
     private Double price;
     private String contentUrl; // link to video/pdf/resource
     private String imageUrl;
+    private Long version;      // bumped on every change, copied into order snapshots
 }
@@ -0,0 +1,31 @@
+package com.app.lurnityBackend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * "This course was created, edited or deleted" marker. Every node polls these to drop its
+ * own cached copy of the course (see CourseChangeFeed); the marker itself carries no course
+ * data, so a poll always re-reads the current state from the courses collection.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "course_changes")
+public class CourseChange {
+
+    @Id
+    private String id;
+
+    private String courseId;
+
+    // Polled by range; Mongo's TTL monitor drops markers long after every node has seen them
+    @Indexed(expireAfter = "1d")
+    private Instant changedAt;
+}
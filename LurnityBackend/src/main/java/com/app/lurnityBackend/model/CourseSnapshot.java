@@ -0,0 +1,28 @@
+package com.app.lurnityBackend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * What an Order remembers about the course it bought: just enough to identify it and
+ * to know what was charged. Display fields (description, images, content link) are
+ * resolved from the course cache when the order is read.
+ */
+@Value
+@AllArgsConstructor
+public class CourseSnapshot {
+
+    String id;          // Course _id (stored as course._id)
+    String title;       // title at purchase time
+    Double price;       // price paid
+    Long version;       // course version at purchase time
+
+    public static CourseSnapshot of(Course course) {
+        return new CourseSnapshot(
+                course.getId(),
+                course.getTitle(),
+                course.getPrice(),
+                course.getVersion() == null ? 0L : course.getVersion()
+        );
+    }
+}
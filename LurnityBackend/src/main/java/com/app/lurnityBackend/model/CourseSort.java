@@ -0,0 +1,15 @@
+package com.app.lurnityBackend.model;
+
+import java.util.Locale;
+
+// Orderings supported by the paged catalog, each backed by an index ending in _id
+public enum CourseSort {
+    PRICE,   // cheapest first
+    TITLE,   // A-Z
+    NEWEST;  // by _id, which starts with the creation time
+
+    // ?sort=price / title / newest (case-insensitive), null when not given
+    public static CourseSort from(String value) {
+        return value == null ? null : valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -2,26 +2,48 @@ package com.app.lurnityBackend.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @Document(collection = "orders")
+// Entitlement lookup: "has this user already paid for this course?"
+@CompoundIndex(name = "user_course_status", def = "{'userId': 1, 'course._id': 1, 'paymentStatus': 1}")
+// At most one open checkout per user and course, so concurrent clicks cannot both insert one
+// (older data with duplicates: see PendingOrderDedupMigration)
+@CompoundIndex(name = "user_course_pending", def = "{'userId': 1, 'course._id': 1}", unique = true,
+        partialFilter = "{'paymentStatus': 'PENDING'}")
+// Per-user order history, newest first
+@CompoundIndex(name = "user_created", def = "{'userId': 1, 'createdAt': -1}")
+// Admin keyset listing on (createdAt, _id), optionally filtered by status or course
+@CompoundIndex(name = "created_id", def = "{'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "status_created_id", def = "{'paymentStatus': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "course_created_id", def = "{'course._id': 1, 'createdAt': -1, '_id': -1}")
 public class Order {
 
     @Id
     private String id;
 
     private String userId;        // email or user _id — your choice
-    private Course course;
+    private CourseSnapshot course; // compact copy taken at purchase time
     private PaymentStatus paymentStatus;
 
-    private String paymentId;     // Stripe PaymentIntent ID
+    @Indexed(sparse = true)
+    private String paymentId;     // Stripe PaymentIntent ID (webhooks look orders up by it)
     private String clientSecret;  // Stripe client secret for frontend confirmation
+    private Date paymentIssuedAt; // when the current PaymentIntent was opened (createdAt never moves)
+    @Indexed(sparse = true)
+    private List<String> paymentIds; // every PaymentIntent opened for this order, so late events for a retried one still land
+    private Long lastEventAt;     // `created` (epoch seconds) of the last Stripe event applied
+    @Indexed(unique = true, sparse = true)
+    private String idempotencyKeyHash; // SHA-256 of the (user-scoped) Idempotency-Key that created the order
 
     @Builder.Default
     private Date createdAt = new Date();
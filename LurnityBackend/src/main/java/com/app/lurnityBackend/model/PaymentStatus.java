@@ -1,9 +1,21 @@
 package com.app.lurnityBackend.model;
 
+import java.util.List;
+
 public enum PaymentStatus {
     PENDING,
     SUCCESS,
     FAILED,
     CANCELLED,
-    REFUNDED
+    REFUNDED;
+
+    // Statuses a Stripe webhook may move an order out of to reach this one (orders only move forward)
+    public List<PaymentStatus> webhookPredecessors() {
+        return switch (this) {
+            case SUCCESS -> List.of(PENDING, FAILED);   // FAILED -> SUCCESS: customer retried the same intent
+            case FAILED -> List.of(PENDING);
+            case REFUNDED -> List.of(SUCCESS);
+            default -> List.of();
+        };
+    }
 }
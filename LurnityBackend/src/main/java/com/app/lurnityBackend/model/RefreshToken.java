@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -17,8 +18,21 @@ public class RefreshToken {
     @Id
     private String id;
 
-    private String userId;   // Reference to User _id
-    private String token;    // The refresh token string
+    @Indexed
+    private String userId;   // Reference to User _id (logout-all deletes by it)
+
+    // SHA-256 of the token handed to the client; the raw token is never stored.
+    // Sparse because legacy documents (raw "token" field) don't have it.
+    @Indexed(unique = true, sparse = true)
+    private String tokenHash;
+
+    // Mongo's TTL monitor deletes the document once this passes
+    @Indexed(expireAfterSeconds = 0)
     private Instant expiryDate; // Expiration date
 
+    // Snapshot needed to mint an access token without loading the user
+    private String email;
+    private String role;
+    private Instant snapshotAt; // when email/role were last read from the user; re-read once stale
+
 }
@@ -4,8 +4,11 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,4 +23,8 @@ public class User {
     String Password;
     Role role;
 
+    // Access tokens issued before this are revoked (logout-all); see TokenEpochService
+    @Indexed(sparse = true)
+    Instant tokensValidAfter;
+
 }
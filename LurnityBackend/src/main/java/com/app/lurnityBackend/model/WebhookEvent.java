@@ -0,0 +1,46 @@
+package com.app.lurnityBackend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * A verified Stripe webhook delivery, queued for asynchronous processing.
+ * The Stripe event id is the _id, so a redelivered event can never be queued twice; the
+ * document is kept (TTL on expireAt) well past Stripe's retry horizon so it doubles as the
+ * durable de-duplication record across restarts and nodes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "stripe_webhook_events")
+// Workers claim the oldest due events
+@CompoundIndex(name = "status_next_attempt", def = "{'status': 1, 'nextAttemptAt': 1}")
+public class WebhookEvent {
+
+    @Id
+    private String id;              // Stripe event id (evt_...)
+
+    private String type;            // e.g. payment_intent.succeeded
+    private String payload;         // raw JSON body as received
+    private WebhookEventStatus status;
+    private int attempts;
+
+    private Date receivedAt;
+    private Date nextAttemptAt;     // when a PENDING event becomes due
+    private Date lockedUntil;       // lease of the worker that claimed it
+    private String leaseToken;      // identifies that claim; only its holder may complete the event
+    private Date processedAt;
+    private String lastError;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Date expireAt;          // MongoDB deletes the record at this time
+}
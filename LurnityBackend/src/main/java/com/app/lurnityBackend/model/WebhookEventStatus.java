@@ -0,0 +1,8 @@
+package com.app.lurnityBackend.model;
+
+public enum WebhookEventStatus {
+    PENDING,      // queued, waiting for a worker (or for its next retry)
+    PROCESSING,   // claimed by a worker, lease in lockedUntil
+    DONE,
+    FAILED        // gave up after the maximum number of attempts
+}
@@ -0,0 +1,11 @@
+package com.app.lurnityBackend.repository;
+
+import com.app.lurnityBackend.model.CourseChange;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface CourseChangeRepository extends MongoRepository<CourseChange, String> {
+    List<CourseChange> findByChangedAtAfter(Instant since);
+}
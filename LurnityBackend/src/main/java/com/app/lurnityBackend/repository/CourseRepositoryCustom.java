@@ -0,0 +1,27 @@
+package com.app.lurnityBackend.repository;
+
+import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.model.CourseSort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Queries that need MongoTemplate rather than derived methods
+public interface CourseRepositoryCustom {
+
+    /**
+     * One keyset page of courses in the given order (ties broken by _id). {@code after} is the
+     * last course of the previous page (only its id and sort field are used), or null for the
+     * first page. minPrice/maxPrice are optional and inclusive; callers only pass them with
+     * CourseSort.PRICE, the one order where the range bounds the index scan.
+     */
+    List<Course> findPage(CourseSort sort, Double minPrice, Double maxPrice, Course after, int limit);
+
+    /**
+     * $set the given fields and increment version, only if the course is still at
+     * expectedVersion. Returns the updated course, or empty if it does not exist or
+     * was changed by someone else in the meantime.
+     */
+    Optional<Course> updateFields(String id, long expectedVersion, Map<String, Object> changes);
+}
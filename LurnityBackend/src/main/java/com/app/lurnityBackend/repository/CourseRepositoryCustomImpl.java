@@ -0,0 +1,97 @@
+package com.app.lurnityBackend.repository;
+
+import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.model.CourseSort;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class CourseRepositoryCustomImpl implements CourseRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Course> findPage(CourseSort sort, Double minPrice, Double maxPrice, Course after, int limit) {
+        List<Criteria> filters = new ArrayList<>();
+
+        if (minPrice != null || maxPrice != null) {
+            Criteria price = Criteria.where("price");
+            if (minPrice != null) {
+                price.gte(minPrice);
+            }
+            if (maxPrice != null) {
+                price.lte(maxPrice);
+            }
+            filters.add(price);
+        }
+
+        Sort order;
+        switch (sort) {
+            case PRICE -> {
+                order = Sort.by(Sort.Direction.ASC, "price", "id");
+                if (after != null) {
+                    filters.add(ascendingAfter("price", after.getPrice(), after.getId()));
+                }
+            }
+            case TITLE -> {
+                order = Sort.by(Sort.Direction.ASC, "title", "id");
+                if (after != null) {
+                    filters.add(ascendingAfter("title", after.getTitle(), after.getId()));
+                }
+            }
+            default -> {
+                order = Sort.by(Sort.Direction.DESC, "id");
+                if (after != null) {
+                    filters.add(Criteria.where("id").lt(after.getId()));
+                }
+            }
+        }
+
+        Query query = new Query();
+        if (!filters.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(filters));
+        }
+        query.with(order).limit(limit);
+
+        return mongoTemplate.find(query, Course.class);
+    }
+
+    @Override
+    public Optional<Course> updateFields(String id, long expectedVersion, Map<String, Object> changes) {
+        Criteria version = expectedVersion == 0
+                ? Criteria.where("version").in(0L, null) // courses created before versioning have none
+                : Criteria.where("version").is(expectedVersion);
+        Query query = Query.query(Criteria.where("id").is(id)).addCriteria(version);
+
+        Update update = new Update().inc("version", 1);
+        changes.forEach(update::set);
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Course.class));
+    }
+
+    // Strictly after (value, id) in ascending (field, _id) order. Mongo sorts null/missing
+    // first, and $gt never matches across types, so a null position needs its own branch.
+    private static Criteria ascendingAfter(String field, Object value, String id) {
+        if (value == null) {
+            return new Criteria().orOperator(
+                    new Criteria().andOperator(Criteria.where(field).is(null), Criteria.where("id").gt(id)),
+                    Criteria.where(field).ne(null)
+            );
+        }
+        return new Criteria().orOperator(
+                Criteria.where(field).gt(value),
+                new Criteria().andOperator(Criteria.where(field).is(value), Criteria.where("id").gt(id))
+        );
+    }
+}
@@ -1,17 +1,47 @@
 package com.app.lurnityBackend.repository;
 
 import com.app.lurnityBackend.model.Order;
+import com.app.lurnityBackend.model.PaymentStatus;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends MongoRepository<Order, String> {
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
 
     // Find orders by userId
     List<Order> findByUserId(String userId);
 
     // Find orders by courseId
     List<Order> findByCourseId(String courseId);
+
+    // Duplicate purchase check, served by the user_course_status index
+    boolean existsByUserIdAndCourseIdAndPaymentStatus(String userId, String courseId, PaymentStatus paymentStatus);
+
+    // Order created by an Idempotency-Key (unique sparse index on its hash)
+    Optional<Order> findByIdempotencyKeyHash(String idempotencyKeyHash);
+
+    // Latest order in a given state for (user, course), e.g. an open PENDING checkout to reuse
+    Optional<Order> findFirstByUserIdAndCourseIdAndPaymentStatusOrderByCreatedAtDesc(
+            String userId, String courseId, PaymentStatus paymentStatus);
+
+    // Order history for one user, newest first (user_created index).
+    // Only the fields mapToDto reads; display fields come from the course cache.
+    @Query(value = "{ 'userId': ?0 }",
+            fields = "{ 'userId': 1, 'paymentStatus': 1, 'paymentId': 1, 'clientSecret': 1, 'createdAt': 1, "
+                    + "'course._id': 1, 'course.title': 1, 'course.price': 1, 'course.version': 1 }",
+            sort = "{ 'createdAt': -1 }")
+    List<Order> findHistoryByUserId(String userId);
+
+    // Course ids a user has paid for, used to warm the entitlement cache
+    @Query(value = "{ 'userId': ?0, 'paymentStatus': 'SUCCESS' }", fields = "{ 'course._id': 1 }")
+    List<Order> findPurchasedByUserId(String userId);
+
+    // Same for several users in one query (bulk warm-up for a page of orders)
+    @Query(value = "{ 'userId': { '$in': ?0 }, 'paymentStatus': 'SUCCESS' }", fields = "{ 'userId': 1, 'course._id': 1 }")
+    List<Order> findPurchasedByUserIdIn(Collection<String> userIds);
 }
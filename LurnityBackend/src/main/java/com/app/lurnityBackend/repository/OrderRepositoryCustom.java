@@ -0,0 +1,41 @@
+package com.app.lurnityBackend.repository;
+
+import com.app.lurnityBackend.model.Order;
+import com.app.lurnityBackend.model.PaymentStatus;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+// Queries that need MongoTemplate rather than derived methods
+public interface OrderRepositoryCustom {
+
+    /**
+     * One keyset page of orders, newest first, ordered by (createdAt, _id).
+     * Pass a null afterCreatedAt/afterId for the first page; every filter is optional.
+     */
+    List<Order> findPage(PaymentStatus status, String userId, String courseId,
+                         Date afterCreatedAt, String afterId, int limit);
+
+    /**
+     * Point an unpaid order at a new PaymentIntent with a single update. The replaced intent
+     * stays in paymentIds, so its late webhook events still find the order.
+     * Returns false if the order does not exist or has been paid in the meantime.
+     */
+    boolean resetPayment(String orderId, String previousPaymentId, String paymentId, String clientSecret,
+                         Date paymentIssuedAt);
+
+    /**
+     * Move the order owning this PaymentIntent (current or replaced by a retry) to a new status,
+     * in one conditional findAndModify.
+     * Only forward transitions (see PaymentStatus#webhookPredecessors) from events that are not
+     * older than the last one applied succeed. Returns the updated order's userId and course id,
+     * or empty if nothing changed.
+     */
+    Optional<Order> transitionByPaymentId(String paymentId, PaymentStatus status, long eventCreated);
+
+    /**
+     * Whether any order has ever used this PaymentIntent, current or replaced.
+     */
+    boolean existsByAnyPaymentId(String paymentId);
+}
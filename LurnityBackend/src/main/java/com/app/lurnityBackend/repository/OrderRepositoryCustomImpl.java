@@ -0,0 +1,111 @@
+package com.app.lurnityBackend.repository;
+
+import com.app.lurnityBackend.model.Order;
+import com.app.lurnityBackend.model.PaymentStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Order> findPage(PaymentStatus status, String userId, String courseId,
+                                Date afterCreatedAt, String afterId, int limit) {
+        List<Criteria> filters = new ArrayList<>();
+
+        if (status != null) {
+            filters.add(Criteria.where("paymentStatus").is(status));
+        }
+        if (userId != null) {
+            filters.add(Criteria.where("userId").is(userId));
+        }
+        if (courseId != null) {
+            filters.add(Criteria.where("course.id").is(courseId));
+        }
+
+        // Keyset: strictly after the last (createdAt, _id) of the previous page
+        if (afterCreatedAt != null && afterId != null) {
+            filters.add(new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(afterCreatedAt),
+                    new Criteria().andOperator(
+                            Criteria.where("createdAt").is(afterCreatedAt),
+                            Criteria.where("id").lt(afterId)
+                    )
+            ));
+        }
+
+        Query query = new Query();
+        if (!filters.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(filters));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                .limit(limit);
+
+        return mongoTemplate.find(query, Order.class);
+    }
+
+    @Override
+    public boolean resetPayment(String orderId, String previousPaymentId, String paymentId, String clientSecret,
+                                Date paymentIssuedAt) {
+        Query query = Query.query(Criteria.where("id").is(orderId)
+                .and("paymentStatus").ne(PaymentStatus.SUCCESS));
+
+        // $addToSet both ids: concurrent retries each add their own, so none is forgotten
+        Object[] opened = previousPaymentId == null
+                ? new Object[]{paymentId}
+                : new Object[]{previousPaymentId, paymentId};
+
+        Update update = new Update()
+                .set("paymentStatus", PaymentStatus.PENDING)
+                .set("paymentId", paymentId)
+                .set("clientSecret", clientSecret)
+                .set("paymentIssuedAt", paymentIssuedAt);
+        update.addToSet("paymentIds").each(opened);
+
+        return mongoTemplate.updateFirst(query, update, Order.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public Optional<Order> transitionByPaymentId(String paymentId, PaymentStatus status, long eventCreated) {
+        Query query = Query.query(new Criteria().andOperator(
+                ownsPaymentIntent(paymentId),
+                Criteria.where("paymentStatus").in(status.webhookPredecessors()),
+                new Criteria().orOperator(
+                        Criteria.where("lastEventAt").exists(false),
+                        Criteria.where("lastEventAt").lte(eventCreated)
+                )));
+        query.fields().include("userId").include("course.id");
+
+        Update update = new Update()
+                .set("paymentStatus", status)
+                .set("lastEventAt", eventCreated);
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                query, update, FindAndModifyOptions.options().returnNew(true), Order.class));
+    }
+
+    @Override
+    public boolean existsByAnyPaymentId(String paymentId) {
+        return mongoTemplate.exists(Query.query(ownsPaymentIntent(paymentId)), Order.class);
+    }
+
+    // Current intent, or one replaced by a retry (both fields are indexed, so the $or stays on indexes)
+    private static Criteria ownsPaymentIntent(String paymentId) {
+        return new Criteria().orOperator(
+                Criteria.where("paymentId").is(paymentId),
+                Criteria.where("paymentIds").is(paymentId)
+        );
+    }
+}
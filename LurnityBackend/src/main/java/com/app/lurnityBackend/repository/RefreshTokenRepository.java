@@ -3,10 +3,7 @@ package com.app.lurnityBackend.repository;
 import com.app.lurnityBackend.model.RefreshToken;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-import java.util.Optional;
-
-public interface RefreshTokenRepository extends MongoRepository<RefreshToken, String> {
-    Optional<RefreshToken> findByToken(String token);
-    void deleteByToken(String token);
+public interface RefreshTokenRepository extends MongoRepository<RefreshToken, String>, RefreshTokenRepositoryCustom {
+    void deleteByTokenHash(String tokenHash);
     void deleteAllByUserId(String userId);
 }
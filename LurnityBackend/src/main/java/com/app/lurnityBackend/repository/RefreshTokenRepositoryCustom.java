@@ -0,0 +1,23 @@
+package com.app.lurnityBackend.repository;
+
+import com.app.lurnityBackend.model.RefreshToken;
+
+import java.time.Instant;
+import java.util.Optional;
+
+// Queries that need MongoTemplate rather than derived methods
+public interface RefreshTokenRepositoryCustom {
+
+    /**
+     * Rotate a refresh token in one findAndModify: the unexpired document with tokenHash gets
+     * newTokenHash, keeping its user snapshot and its original expiry (rotation never extends
+     * a session). Returns the document as it was before, or empty if the token is unknown,
+     * expired or was already rotated by a concurrent request.
+     */
+    Optional<RefreshToken> rotate(String tokenHash, String newTokenHash, Instant now);
+
+    /**
+     * Replace the email/role snapshot of a refresh token with freshly loaded values.
+     */
+    void updateSnapshot(String tokenHash, String email, String role, Instant snapshotAt);
+}
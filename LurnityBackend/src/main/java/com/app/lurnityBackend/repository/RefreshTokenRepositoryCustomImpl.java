@@ -0,0 +1,35 @@
+package com.app.lurnityBackend.repository;
+
+import com.app.lurnityBackend.model.RefreshToken;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class RefreshTokenRepositoryCustomImpl implements RefreshTokenRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<RefreshToken> rotate(String tokenHash, String newTokenHash, Instant now) {
+        // The TTL monitor only runs once a minute, so expiry is still checked here
+        Query query = Query.query(Criteria.where("tokenHash").is(tokenHash).and("expiryDate").gt(now));
+        Update update = new Update().set("tokenHash", newTokenHash);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update, RefreshToken.class));
+    }
+
+    @Override
+    public void updateSnapshot(String tokenHash, String email, String role, Instant snapshotAt) {
+        Query query = Query.query(Criteria.where("tokenHash").is(tokenHash));
+        Update update = new Update()
+                .set("email", email)
+                .set("role", role)
+                .set("snapshotAt", snapshotAt);
+        mongoTemplate.updateFirst(query, update, RefreshToken.class);
+    }
+}
@@ -2,14 +2,21 @@ package com.app.lurnityBackend.repository;
 
 import com.app.lurnityBackend.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepo extends MongoRepository<User, String> {
+public interface UserRepo extends MongoRepository<User, String>, UserRepoCustom {
 
     Optional<User> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    // Only id + epoch, for the in-memory revocation mirror
+    @Query(value = "{ 'tokensValidAfter': { $gt: ?0 } }", fields = "{ '_id': 1, 'tokensValidAfter': 1 }")
+    List<User> findTokenEpochsChangedAfter(Instant since);
 }
@@ -0,0 +1,16 @@
+package com.app.lurnityBackend.repository;
+
+import java.time.Instant;
+
+// Queries that need MongoTemplate rather than derived methods
+public interface UserRepoCustom {
+
+    /**
+     * Replace the stored password hash with a single $set, only if it is still expectedHash
+     * (so a password change that happened in the meantime is never overwritten).
+     */
+    boolean updatePasswordHash(String userId, String expectedHash, String newHash);
+
+    // $max: a concurrent logout-all can never move the epoch backwards
+    void raiseTokensValidAfter(String userId, Instant epoch);
+}
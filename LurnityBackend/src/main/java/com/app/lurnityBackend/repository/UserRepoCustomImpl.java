@@ -0,0 +1,29 @@
+package com.app.lurnityBackend.repository;
+
+import com.app.lurnityBackend.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+@RequiredArgsConstructor
+public class UserRepoCustomImpl implements UserRepoCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean updatePasswordHash(String userId, String expectedHash, String newHash) {
+        Query query = Query.query(Criteria.where("_id").is(userId).and("Password").is(expectedHash));
+        Update update = new Update().set("Password", newHash);
+        return mongoTemplate.updateFirst(query, update, User.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public void raiseTokensValidAfter(String userId, Instant epoch) {
+        Query query = Query.query(Criteria.where("_id").is(userId));
+        mongoTemplate.updateFirst(query, new Update().max("tokensValidAfter", epoch), User.class);
+    }
+}
@@ -0,0 +1,15 @@
+package com.app.lurnityBackend.repository;
+
+import com.app.lurnityBackend.model.WebhookEvent;
+import com.app.lurnityBackend.model.WebhookEventStatus;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface WebhookEventRepository extends MongoRepository<WebhookEvent, String>, WebhookEventRepositoryCustom {
+
+    // Backlog size for the queue depth gauge
+    long countByStatusIn(Collection<WebhookEventStatus> statuses);
+}
@@ -0,0 +1,33 @@
+package com.app.lurnityBackend.repository;
+
+import com.app.lurnityBackend.model.WebhookEvent;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+// Atomic queue transitions for stripe_webhook_events
+public interface WebhookEventRepositoryCustom {
+
+    /**
+     * Claim up to limit of the oldest due events (or ones whose worker lease has expired)
+     * and lease them until lockedUntil under leaseToken, in a fixed three round trips.
+     * Safe to call from several nodes at once: an event another node claimed in between
+     * no longer matches the claim and is simply not returned.
+     * <p>
+     * The transitions below only apply while the caller still holds that lease: once it
+     * expires and another worker re-claims the event, the late worker's update matches
+     * nothing and they return false.
+     */
+    List<WebhookEvent> claimBatch(Date now, Date lockedUntil, String leaseToken, int limit);
+
+    boolean markDone(String id, String leaseToken, Date processedAt);
+
+    // Back to PENDING, due again at nextAttemptAt
+    boolean markRetry(String id, String leaseToken, Date nextAttemptAt, String error);
+
+    boolean markFailed(String id, String leaseToken, String error);
+
+    // Hand unprocessed claims back (e.g. the worker pool was full), without using up an attempt
+    long release(Collection<String> ids, String leaseToken, Date nextAttemptAt);
+}
@@ -0,0 +1,115 @@
+package com.app.lurnityBackend.repository;
+
+import com.app.lurnityBackend.model.WebhookEvent;
+import com.app.lurnityBackend.model.WebhookEventStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class WebhookEventRepositoryCustomImpl implements WebhookEventRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<WebhookEvent> claimBatch(Date now, Date lockedUntil, String leaseToken, int limit) {
+        // 1. Candidate ids (updateMany has no limit, so the batch is picked first)
+        Query due = Query.query(claimable(now))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"))
+                .limit(limit);
+        due.fields().include("id");
+        List<String> ids = mongoTemplate.find(due, WebhookEvent.class).stream()
+                .map(WebhookEvent::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // 2. Lease them all at once; re-checking claimable() skips the ones another node just took
+        Update update = new Update()
+                .set("status", WebhookEventStatus.PROCESSING)
+                .set("lockedUntil", lockedUntil)
+                .set("leaseToken", leaseToken)
+                .inc("attempts", 1);
+        long claimed = mongoTemplate.updateMulti(
+                Query.query(new Criteria().andOperator(Criteria.where("id").in(ids), claimable(now))),
+                update, WebhookEvent.class).getModifiedCount();
+        if (claimed == 0) {
+            return List.of();
+        }
+
+        // 3. Read back what this lease won (by _id, so no index on leaseToken is needed)
+        Query won = Query.query(Criteria.where("id").in(ids).and("leaseToken").is(leaseToken))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        return mongoTemplate.find(won, WebhookEvent.class);
+    }
+
+    @Override
+    public boolean markDone(String id, String leaseToken, Date processedAt) {
+        Update update = new Update()
+                .set("status", WebhookEventStatus.DONE)
+                .set("processedAt", processedAt)
+                .unset("lockedUntil")
+                .unset("leaseToken")
+                .unset("lastError");
+        return updateIfLeased(id, leaseToken, update);
+    }
+
+    @Override
+    public boolean markRetry(String id, String leaseToken, Date nextAttemptAt, String error) {
+        Update update = new Update()
+                .set("status", WebhookEventStatus.PENDING)
+                .set("nextAttemptAt", nextAttemptAt)
+                .set("lastError", error)
+                .unset("lockedUntil")
+                .unset("leaseToken");
+        return updateIfLeased(id, leaseToken, update);
+    }
+
+    @Override
+    public boolean markFailed(String id, String leaseToken, String error) {
+        Update update = new Update()
+                .set("status", WebhookEventStatus.FAILED)
+                .set("lastError", error)
+                .unset("lockedUntil")
+                .unset("leaseToken");
+        return updateIfLeased(id, leaseToken, update);
+    }
+
+    @Override
+    public long release(Collection<String> ids, String leaseToken, Date nextAttemptAt) {
+        Update update = new Update()
+                .set("status", WebhookEventStatus.PENDING)
+                .set("nextAttemptAt", nextAttemptAt)
+                .unset("lockedUntil")
+                .unset("leaseToken")
+                .inc("attempts", -1); // the claim counted one, but nothing was attempted
+        Query query = Query.query(Criteria.where("id").in(ids)
+                .and("status").is(WebhookEventStatus.PROCESSING)
+                .and("leaseToken").is(leaseToken));
+        return mongoTemplate.updateMulti(query, update, WebhookEvent.class).getModifiedCount();
+    }
+
+    // Due for a (re)try, or abandoned by a worker whose lease ran out
+    private static Criteria claimable(Date now) {
+        return new Criteria().orOperator(
+                Criteria.where("status").is(WebhookEventStatus.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(WebhookEventStatus.PROCESSING).and("lockedUntil").lt(now)
+        );
+    }
+
+    // Apply the update only if this lease still owns the event
+    private boolean updateIfLeased(String id, String leaseToken, Update update) {
+        Query query = Query.query(Criteria.where("id").is(id)
+                .and("status").is(WebhookEventStatus.PROCESSING)
+                .and("leaseToken").is(leaseToken));
+        return mongoTemplate.updateFirst(query, update, WebhookEvent.class).getMatchedCount() > 0;
+    }
+}
@@ -5,23 +5,29 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtils jwtUtils;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenEpochService tokenEpochService;
+
+    // Stateless: build the principal from the verified claims alone, no user lookup per request
+    @Value("${security.auth.stateless:true}")
+    private boolean stateless;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -30,26 +36,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String email = null;
-        String role = null;
-
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            email = jwtUtils.getEmailFromToken(token);
-            role = jwtUtils.getRoleFromToken(token);
-        }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            // One parse = one signature check, and none at all for a token this node already verified
+            Optional<JwtClaims> claims = verifiedTokenCache.parseToken(authHeader.substring(7));
 
-            if (jwtUtils.validateToken(token) && role != null) {
+            if (claims.isPresent() && isUsable(claims.get())) {
+                String email = claims.get().subject();
+                String role = claims.get().role();
+
+                // Stateful mode still checks the account exists; either way the principal
+                // carries the user id, so endpoints never need to trust a client-supplied one
+                if (!stateless) {
+                    userDetailsService.loadUserByUsername(email);
+                }
+                JwtPrincipal principal = new JwtPrincipal(claims.get().userId(), email, role);
 
                 // ✅ Set role as Spring Security authority
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
-                                userDetails,
+                                principal,
                                 null,
                                 List.of(new SimpleGrantedAuthority("ROLE_" + role))
                         );
@@ -63,4 +71,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private boolean isUsable(JwtClaims claims) {
+        if (claims.role() == null) {
+            return false;
+        }
+        if (claims.userId() == null) {
+            // Without a uid the epoch can't be checked, so only the stateful mode may accept it
+            return !stateless;
+        }
+        return !tokenEpochService.isRevoked(claims.userId(), claims.issuedAt());
+    }
 }
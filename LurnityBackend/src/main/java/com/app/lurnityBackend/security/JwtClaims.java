@@ -0,0 +1,10 @@
+package com.app.lurnityBackend.security;
+
+import java.time.Instant;
+
+/**
+ * The verified claims of an access token, extracted in a single parse.
+ * userId is null for tokens minted before the "uid" claim existed.
+ */
+public record JwtClaims(String subject, String userId, String role, Instant issuedAt, Instant expiresAt) {
+}
@@ -0,0 +1,201 @@
+package com.app.lurnityBackend.security;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The set of keys this node accepts token signatures from, plus the one it signs with.
+ * <p>
+ * Every configured key verifies as soon as it is loaded, while signing uses the newest key
+ * whose active-from has passed. Rotation is therefore: publish the new key with a future
+ * active-from, let every node pick it up, and at that instant all nodes start signing with
+ * it while still accepting tokens signed by the old one. The old key is removed once its
+ * tokens have expired. The ring is reloaded on a schedule so keystore changes and
+ * active-from switches apply without a restart.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    public record SigningKey(String kid, SignatureAlgorithm algorithm, Key signingKey,
+                             Key verificationKey, Instant activeFrom) {
+    }
+
+    private final JwtKeyRingProperties properties;
+
+    // Only used when nothing is configured, kept for the lifetime of the process
+    private SigningKey ephemeralKey;
+
+    private volatile Map<String, SigningKey> keys = Map.of();
+    private volatile SigningKey active;
+
+    public JwtKeyRing(JwtKeyRingProperties properties) {
+        this.properties = properties;
+        reload();
+    }
+
+    public SigningKey activeKey() {
+        SigningKey key = active;
+        if (key == null) {
+            throw new IllegalStateException("No active JWT signing key (verify-only node?)");
+        }
+        return key;
+    }
+
+    // Key for a token's kid header, or null if this node does not know it
+    public SigningKey find(String kid) {
+        return kid != null ? keys.get(kid) : null;
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.key-ring.refresh-ms:60000}")
+    public void reload() {
+        Map<String, SigningKey> loaded = new HashMap<>();
+        try {
+            for (JwtKeyRingProperties.Key key : properties.getKeys()) {
+                loaded.put(key.getKid(), fromProperties(key));
+            }
+            if (properties.getKeystorePath() != null) {
+                loaded.putAll(fromKeystore());
+            }
+        } catch (GeneralSecurityException | IOException | JwtException | IllegalArgumentException e) {
+            if (!keys.isEmpty()) {
+                // Keep serving with the last good ring rather than locking everyone out
+                log.warn("Failed to reload JWT key ring, keeping previous keys", e);
+                return;
+            }
+            throw new IllegalStateException("Invalid JWT key ring configuration", e);
+        }
+
+        if (loaded.isEmpty()) {
+            loaded.put(ephemeralKey().kid(), ephemeralKey());
+        }
+
+        Instant now = Instant.now();
+        keys = Collections.unmodifiableMap(loaded);
+        active = loaded.values().stream()
+                .filter(key -> key.signingKey() != null)
+                .filter(key -> key.activeFrom() == null || !key.activeFrom().isAfter(now))
+                .max(Comparator.comparing((SigningKey key) -> key.activeFrom() != null ? key.activeFrom() : Instant.MIN)
+                        .thenComparing(SigningKey::kid))
+                .orElse(null);
+    }
+
+    private SigningKey fromProperties(JwtKeyRingProperties.Key key) throws GeneralSecurityException {
+        if (key.getKid() == null) {
+            throw new IllegalArgumentException("JWT key without kid");
+        }
+        SignatureAlgorithm algorithm = SignatureAlgorithm.forName(key.getAlgorithm());
+
+        if (algorithm.isHmac()) {
+            Key secret = Keys.hmacShaKeyFor(decode(key.getSecret()));
+            algorithm.assertValidSigningKey(secret); // e.g. HS512 needs a 512-bit secret
+            return new SigningKey(key.getKid(), algorithm, secret, secret, key.getActiveFrom());
+        }
+        if (algorithm != SignatureAlgorithm.RS256) {
+            throw new IllegalArgumentException("Unsupported JWT algorithm: " + key.getAlgorithm());
+        }
+
+        KeyFactory rsa = KeyFactory.getInstance("RSA");
+        Key privateKey = key.getPrivateKey() != null
+                ? rsa.generatePrivate(new PKCS8EncodedKeySpec(decode(key.getPrivateKey())))
+                : null;
+        Key publicKey = rsa.generatePublic(new X509EncodedKeySpec(decode(key.getPublicKey())));
+        algorithm.assertValidVerificationKey(publicKey);
+        return new SigningKey(key.getKid(), algorithm, privateKey, publicKey, key.getActiveFrom());
+    }
+
+    private Map<String, SigningKey> fromKeystore() throws GeneralSecurityException, IOException {
+        char[] password = properties.getKeystorePassword() != null
+                ? properties.getKeystorePassword().toCharArray()
+                : new char[0];
+
+        KeyStore keyStore = KeyStore.getInstance(properties.getKeystoreType());
+        try (InputStream in = Files.newInputStream(Path.of(properties.getKeystorePath()))) {
+            keyStore.load(in, password);
+        }
+
+        Map<String, SigningKey> loaded = new HashMap<>();
+        for (String alias : Collections.list(keyStore.aliases())) {
+            // Not the entry's creation date: importing a key must not make it sign right away
+            Instant activeFrom = properties.getKeystoreActiveFrom().get(alias);
+
+            if (keyStore.isKeyEntry(alias)) {
+                Key key = keyStore.getKey(alias, password);
+                SignatureAlgorithm algorithm = SignatureAlgorithm.forSigningKey(key);
+                Certificate certificate = keyStore.getCertificate(alias);
+                Key verificationKey = certificate != null ? certificate.getPublicKey() : key;
+                // Without a configured active-from the entry is published for verification only
+                loaded.put(alias, new SigningKey(alias, algorithm, activeFrom != null ? key : null,
+                        verificationKey, activeFrom));
+            } else if (keyStore.isCertificateEntry(alias)) {
+                // Another service's public key: verify only
+                PublicKey publicKey = keyStore.getCertificate(alias).getPublicKey();
+                loaded.put(alias, new SigningKey(alias, algorithmFor(publicKey), null, publicKey, null));
+            }
+        }
+        return loaded;
+    }
+
+    // Same key-size rules jjwt applies to signing keys, for keys we only hold the public half of
+    private static SignatureAlgorithm algorithmFor(PublicKey publicKey) {
+        if (publicKey instanceof RSAPublicKey rsa) {
+            int bits = rsa.getModulus().bitLength();
+            return bits >= 4096 ? SignatureAlgorithm.RS512
+                    : bits >= 3072 ? SignatureAlgorithm.RS384
+                    : SignatureAlgorithm.RS256;
+        }
+        if (publicKey instanceof ECPublicKey ec) {
+            int bits = ec.getParams().getCurve().getField().getFieldSize();
+            return bits >= 521 ? SignatureAlgorithm.ES512
+                    : bits >= 384 ? SignatureAlgorithm.ES384
+                    : SignatureAlgorithm.ES256;
+        }
+        throw new IllegalArgumentException("Unsupported JWT verification key: " + publicKey.getAlgorithm());
+    }
+
+    private synchronized SigningKey ephemeralKey() {
+        if (ephemeralKey == null) {
+            log.warn("No JWT keys configured (security.jwt.key-ring.*): using a random key. "
+                    + "Tokens will not be accepted by other nodes or after a restart.");
+            Key secret = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+            ephemeralKey = new SigningKey("ephemeral-" + UUID.randomUUID(), SignatureAlgorithm.HS512,
+                    secret, secret, null);
+        }
+        return ephemeralKey;
+    }
+
+    // Accepts plain base64 or PEM (header/footer lines and line breaks are stripped)
+    private static byte[] decode(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing JWT key material");
+        }
+        String base64 = value.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+}
@@ -0,0 +1,66 @@
+package com.app.lurnityBackend.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JWT signing keys shared by every node (security.jwt.key-ring.*).
+ * <p>
+ * Example:
+ * <pre>
+ * security.jwt.key-ring.keys[0].kid=2026-09
+ * security.jwt.key-ring.keys[0].secret=&lt;base64, at least 64 bytes&gt;
+ * security.jwt.key-ring.keys[1].kid=2026-10
+ * security.jwt.key-ring.keys[1].secret=&lt;base64&gt;
+ * security.jwt.key-ring.keys[1].active-from=2026-10-01T00:00:00Z
+ * </pre>
+ * Keys can also come from a PKCS12 keystore, one entry per kid (the alias). Their
+ * active-from is configured here rather than taken from the keystore, so a new entry can be
+ * published first and activated later:
+ * <pre>
+ * security.jwt.key-ring.keystore-active-from.2026-10=2026-10-01T00:00:00Z
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "security.jwt.key-ring")
+public class JwtKeyRingProperties {
+
+    private List<Key> keys = new ArrayList<>();
+
+    // Optional keystore. The algorithm follows each entry's key: HS256/384/512 by secret length,
+    // RS256/384/512 by modulus size, ES256/384/512 by curve.
+    private String keystorePath;
+    private String keystorePassword;
+    private String keystoreType = "PKCS12";
+
+    // alias -> when that keystore entry starts signing. Entries not listed only verify.
+    private Map<String, Instant> keystoreActiveFrom = new HashMap<>();
+
+    @Data
+    public static class Key {
+        private String kid;
+
+        // HS512 or RS256
+        private String algorithm = "HS512";
+
+        // HS512: base64 shared secret
+        private String secret;
+
+        // RS256: base64 (or PEM) PKCS#8 private key and X.509 public key.
+        // Nodes that only verify tokens can leave the private key out.
+        private String privateKey;
+        private String publicKey;
+
+        // When this key starts signing; it verifies as soon as it is loaded.
+        // Null means "since forever".
+        private Instant activeFrom;
+    }
+}
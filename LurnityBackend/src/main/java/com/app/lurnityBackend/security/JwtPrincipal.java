@@ -0,0 +1,17 @@
+package com.app.lurnityBackend.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * Principal built from verified token claims, so that authenticating a request
+ * does not need a user lookup (stateless mode) and endpoints acting on "the caller"
+ * can take the user id from here rather than from the request.
+ * getName() is the email, so controllers calling authentication.getName() keep working.
+ */
+public record JwtPrincipal(String userId, String email, String role) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
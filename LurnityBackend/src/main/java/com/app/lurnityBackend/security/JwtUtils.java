@@ -1,34 +1,74 @@
 package com.app.lurnityBackend.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
+import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
-import java.util.Base64;
+import java.util.Optional;
 
 @Component
 public class JwtUtils {
 
-    private final SecretKey jwtSecret = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+    private final JwtKeyRing keyRing;
     private final long jwtExpirationMs = 1000 * 60 * 60 * 24 * 3; // 3 days
 
+    // Parsers are immutable and thread-safe, so build it once instead of per call
+    private final JwtParser jwtParser;
+
+    public JwtUtils(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new KeyRingResolver())
+                .build();
+    }
+
     /**
-     * Generate JWT token with email and role
+     * Generate JWT token with email, user id and role
      */
-    public String generateToken(String email, String role) {
+    public String generateToken(String userId, String email, String role) {
+        JwtKeyRing.SigningKey signingKey = keyRing.activeKey();
         return Jwts.builder()
                 .setSubject(email)
+                .claim("uid", userId)
                 .claim("role", role)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(jwtSecret)
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                .signWith(signingKey.signingKey(), signingKey.algorithm())
                 .compact();
     }
 
+    public Duration getAccessTokenLifetime() {
+        return Duration.ofMillis(jwtExpirationMs);
+    }
+
+    /**
+     * Verify signature + expiry once and return the claims the filter needs.
+     * Empty if the token is malformed, tampered with or expired.
+     */
+    public Optional<JwtClaims> parseToken(String token) {
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            return Optional.of(new JwtClaims(
+                    claims.getSubject(),
+                    claims.get("uid", String.class),
+                    claims.get("role", String.class),
+                    claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                    claims.getExpiration().toInstant()
+            ));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Extract email (subject)
      */
@@ -56,17 +96,21 @@ public class JwtUtils {
     }
 
     private Claims getClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(jwtSecret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
     /**
-     * Optional: Base64 key string
+     * Picks the verification key by the token's kid header. The algorithm must match the
+     * key's, so e.g. an RS256 public key can never be used as an HMAC secret.
      */
-    public String getBase64Secret() {
-        return Base64.getEncoder().encodeToString(jwtSecret.getEncoded());
+    private class KeyRingResolver extends SigningKeyResolverAdapter {
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            JwtKeyRing.SigningKey key = keyRing.find(header.getKeyId());
+            if (key == null || !key.algorithm().getValue().equals(header.getAlgorithm())) {
+                throw new UnsupportedJwtException("Unknown signing key: " + header.getKeyId());
+            }
+            return key.verificationKey();
+        }
     }
 }
@@ -0,0 +1,179 @@
+package com.app.lurnityBackend.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Token-bucket throttling for the endpoints that are expensive or abusable:
+ * login/signup (BCrypt), refresh, checkout (Stripe quota) and catalog reads.
+ * <p>
+ * Runs after JwtAuthenticationFilter so per-user limits can use the authenticated caller.
+ * Rejected requests get 429 + Retry-After and are counted in rate.limit.rejected.
+ * Keys use the socket address; behind a load balancer set server.forward-headers-strategy
+ * so that it is the client's address.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Login bodies are tiny; anything bigger is rejected rather than let past the per-email limit
+    private static final int MAX_LOGIN_BODY = 8 * 1024;
+    // Bucket shared by login attempts whose body names no email
+    private static final String NO_EMAIL = "<none>";
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    private final RateLimitPolicy loginPerIp;
+    private final RateLimitPolicy loginPerEmail;
+    private final RateLimitPolicy signupPerIp;
+    private final RateLimitPolicy refreshPerIp;
+    private final RateLimitPolicy checkoutPerUser;
+    private final RateLimitPolicy catalogPerCaller;
+
+    public RateLimitFilter(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.login.per-ip-per-minute:20}") int loginPerIp,
+                           @Value("${rate-limit.login.per-email-per-minute:5}") int loginPerEmail,
+                           @Value("${rate-limit.signup.per-ip-per-minute:10}") int signupPerIp,
+                           @Value("${rate-limit.refresh.per-ip-per-minute:30}") int refreshPerIp,
+                           @Value("${rate-limit.checkout.per-user-per-minute:10}") int checkoutPerUser,
+                           @Value("${rate-limit.catalog.per-caller-per-minute:300}") int catalogPerCaller) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.loginPerIp = new RateLimitPolicy("login-ip", loginPerIp, MINUTE);
+        this.loginPerEmail = new RateLimitPolicy("login-email", loginPerEmail, MINUTE);
+        this.signupPerIp = new RateLimitPolicy("signup-ip", signupPerIp, MINUTE);
+        this.refreshPerIp = new RateLimitPolicy("refresh-ip", refreshPerIp, MINUTE);
+        this.checkoutPerUser = new RateLimitPolicy("checkout-user", checkoutPerUser, MINUTE);
+        this.catalogPerCaller = new RateLimitPolicy("catalog-caller", catalogPerCaller, MINUTE);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String method = request.getMethod();
+        String path = request.getRequestURI();
+        String ip = request.getRemoteAddr();
+        long now = System.nanoTime();
+
+        if ("POST".equals(method) && path.equals("/api/auth/login")) {
+            if (reject(loginPerIp, ip, now, response)) {
+                return;
+            }
+            // Read up to the cap whatever Content-Length says (chunked bodies have none)
+            byte[] body = request.getInputStream().readNBytes(MAX_LOGIN_BODY + 1);
+            if (body.length > MAX_LOGIN_BODY) {
+                response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("{\"message\":\"Request body too large\"}");
+                return;
+            }
+            if (reject(loginPerEmail, emailOf(body), now, response)) {
+                return;
+            }
+            filterChain.doFilter(new CachedBodyRequest(request, body), response);
+            return;
+        }
+
+        if ("POST".equals(method) && path.equals("/api/auth/signup")) {
+            if (reject(signupPerIp, ip, now, response)) {
+                return;
+            }
+        } else if ("POST".equals(method) && path.equals("/api/auth/refresh")) {
+            if (reject(refreshPerIp, ip, now, response)) {
+                return;
+            }
+        } else if ("POST".equals(method) && path.startsWith("/api/orders")) {
+            if (reject(checkoutPerUser, callerKey(ip), now, response)) {
+                return;
+            }
+        } else if ("GET".equals(method) && path.startsWith("/api/courses")) {
+            if (reject(catalogPerCaller, callerKey(ip), now, response)) {
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    // Fully refilled buckets carry no state, so they are dropped to bound memory
+    @Scheduled(fixedDelayString = "${rate-limit.cleanup-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        for (RateLimitPolicy policy : List.of(loginPerIp, loginPerEmail, signupPerIp,
+                refreshPerIp, checkoutPerUser, catalogPerCaller)) {
+            policy.evictIdle(now);
+        }
+    }
+
+    private boolean reject(RateLimitPolicy policy, String key, long now, HttpServletResponse response)
+            throws IOException {
+        if (key == null) {
+            return false;
+        }
+        long waitNanos = policy.tryAcquire(key, now);
+        if (waitNanos == 0) {
+            return false;
+        }
+
+        meterRegistry.counter("rate.limit.rejected", "policy", policy.getName()).increment();
+
+        long retryAfterSeconds = Math.max(1, (waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND); // round up
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"Too many requests, please try again later\"}");
+        return true;
+    }
+
+    // Authenticated user if there is one, otherwise the client address
+    private String callerKey(String ip) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated()
+                ? "user:" + authentication.getName()
+                : "ip:" + ip;
+    }
+
+    // Normalized email from a login body; bodies without one all share the NO_EMAIL bucket
+    private String emailOf(byte[] body) {
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            JsonNode email = json == null ? null : json.get("email");
+            return email != null && email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : NO_EMAIL;
+        } catch (IOException e) {
+            return NO_EMAIL; // malformed body: the controller will reject it anyway
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.app.lurnityBackend.security;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One rate limit (e.g. "5 logins per minute per email"), with a token bucket per key.
+ * <p>
+ * Each bucket is a single AtomicLong updated with CAS (GCRA, the "virtual scheduling" form
+ * of a token bucket): it stores the time at which the bucket will be full again. A request
+ * is allowed if that time, pushed back by one emission interval, stays within the burst
+ * window. No locks, no timers, one CAS in the common case. The key map is a
+ * ConcurrentHashMap, so different keys never contend with each other.
+ */
+public class RateLimitPolicy {
+
+    private final String name;
+    private final long emissionIntervalNanos;
+    private final long burstWindowNanos;
+
+    // key -> "theoretical arrival time" in System.nanoTime() units
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    // limit requests per period, all of which may arrive at once
+    public RateLimitPolicy(String name, int limit, Duration period) {
+        this.name = name;
+        this.emissionIntervalNanos = period.toNanos() / limit;
+        this.burstWindowNanos = emissionIntervalNanos * limit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Take one token for this key. Returns 0 if allowed, otherwise the nanos until a token
+     * is available (nothing is consumed in that case).
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        while (true) {
+            long tat = bucket.get();
+            long newTat = Math.max(tat, nowNanos) + emissionIntervalNanos;
+            long waitNanos = newTat - nowNanos - burstWindowNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    // Drop buckets that have fully refilled: they behave exactly like a missing one
+    public void evictIdle(long nowNanos) {
+        buckets.values().removeIf(bucket -> bucket.get() - nowNanos <= 0);
+    }
+}
@@ -0,0 +1,95 @@
+package com.app.lurnityBackend.security;
+
+import com.app.lurnityBackend.model.User;
+import com.app.lurnityBackend.repository.UserRepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user "tokens valid after" epoch. Access tokens issued before a user's epoch are
+ * treated as revoked, which lets the JWT filter reject them with a map lookup instead
+ * of fetching the user on every request.
+ * <p>
+ * The epoch is persisted on the user (users.tokensValidAfter) and mirrored here as epoch
+ * seconds. Every node polls for epochs changed since its last sync, so a logout-all on one
+ * node is enforced everywhere within the poll interval. Epochs older than the access token
+ * lifetime can no longer reject anything and are dropped, which keeps the map small.
+ */
+@Service
+public class TokenEpochService {
+
+    private final UserRepo userRepo;
+    private final Duration tokenLifetime;
+
+    // Other nodes' writes can land slightly "in the past" (clock skew, second truncation)
+    private final Duration syncOverlap;
+
+    // userId -> tokens issued (iat, in seconds) strictly before this are revoked
+    private final Map<String, Long> validAfter = new ConcurrentHashMap<>();
+
+    private volatile Instant lastSync;
+
+    public TokenEpochService(UserRepo userRepo,
+                             JwtUtils jwtUtils,
+                             @Value("${security.token-epoch.sync-overlap:10s}") Duration syncOverlap) {
+        this.userRepo = userRepo;
+        this.tokenLifetime = jwtUtils.getAccessTokenLifetime();
+        this.syncOverlap = syncOverlap;
+    }
+
+    public boolean isRevoked(String userId, Instant issuedAt) {
+        Long epoch = validAfter.get(userId);
+        if (epoch == null) {
+            return false;
+        }
+        return issuedAt == null || issuedAt.getEpochSecond() < epoch;
+    }
+
+    // Revoke every access token the user holds right now, on every node
+    public void revokeAll(String userId) {
+        Assert.hasText(userId, "userId is required");
+        // iat only has second precision, so truncate: otherwise a token minted in the same
+        // second, just after the revocation (e.g. logging straight back in), would be rejected
+        Instant epoch = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        userRepo.raiseTokensValidAfter(userId, epoch);
+        apply(userId, epoch);
+    }
+
+    // Full load of the epochs that still matter, then incremental polling takes over
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Instant startedAt = Instant.now();
+        userRepo.findTokenEpochsChangedAfter(startedAt.minus(tokenLifetime))
+                .forEach(user -> apply(user.getId(), user.getTokensValidAfter()));
+        lastSync = startedAt;
+    }
+
+    @Scheduled(fixedDelayString = "${security.token-epoch.refresh-ms:2000}")
+    public void refresh() {
+        Instant since = lastSync;
+        if (since == null) {
+            return; // not loaded yet
+        }
+        Instant startedAt = Instant.now();
+        userRepo.findTokenEpochsChangedAfter(since.minus(syncOverlap))
+                .forEach(user -> apply(user.getId(), user.getTokensValidAfter()));
+        lastSync = startedAt;
+
+        long expired = startedAt.minus(tokenLifetime).getEpochSecond();
+        validAfter.values().removeIf(epoch -> epoch < expired);
+    }
+
+    private void apply(String userId, Instant epoch) {
+        validAfter.merge(userId, epoch.getEpochSecond(), Math::max);
+    }
+}
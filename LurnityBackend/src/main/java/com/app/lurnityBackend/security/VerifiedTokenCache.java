@@ -0,0 +1,61 @@
+package com.app.lurnityBackend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Cache of already verified access tokens, in front of JwtUtils.parseToken.
+ * <p>
+ * A client sends the same token on every call, so the signature check and claim parsing
+ * only need to happen the first time a node sees it. Entries are keyed by a SHA-256 of the
+ * token (raw tokens are never held) and live until min(token exp, ttl), so an expired token
+ * is never served from here. Invalid tokens are not cached. Revocation is checked by the
+ * caller on every request, after this lookup.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtUtils jwtUtils;
+    private final boolean enabled;
+    private final Cache<String, JwtClaims> verified;
+
+    public VerifiedTokenCache(JwtUtils jwtUtils,
+                              MeterRegistry meterRegistry,
+                              @Value("${security.jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${security.jwt.cache.max-size:100000}") long maxSize,
+                              @Value("${security.jwt.cache.ttl:5m}") Duration ttl) {
+        this.jwtUtils = jwtUtils;
+        this.enabled = enabled;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(expireAtTokenExpiry(ttl))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwt-verified-tokens");
+    }
+
+    // Same contract as JwtUtils.parseToken
+    public Optional<JwtClaims> parseToken(String token) {
+        if (!enabled) {
+            return jwtUtils.parseToken(token);
+        }
+        return Optional.ofNullable(verified.get(TokenHashing.sha256(token), key -> jwtUtils.parseToken(token).orElse(null)));
+    }
+
+    private static Expiry<String, JwtClaims> expireAtTokenExpiry(Duration ttl) {
+        return Expiry.creating((key, claims) -> {
+            Duration untilExpiry = Duration.between(Instant.now(), claims.expiresAt());
+            return untilExpiry.compareTo(ttl) < 0 ? untilExpiry : ttl;
+        });
+    }
+}
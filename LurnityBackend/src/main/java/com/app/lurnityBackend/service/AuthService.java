@@ -9,77 +9,94 @@ import com.app.lurnityBackend.repository.UserRepo;
 import com.app.lurnityBackend.security.JwtUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
     private final UserRepo userRepo;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtUtils jwtUtils;
     private final TokenService tokenService; // Injected properly
 
+    // Spring Boot's general-purpose pool (resolved by name: the scheduler is an Executor too).
+    // The work after a hash (Mongo writes, JWT signing) runs here, so the password pool only ever runs BCrypt.
+    private final Executor applicationTaskExecutor;
+
     // ------------------- SIGNUP -------------------
-    public SignupResponse signup(SignupRequest request) {
+    // Hashing runs on the bounded password pool; the rest continues on the application pool
+    public CompletableFuture<SignupResponse> signup(SignupRequest request) {
         // 1. Check if user already exists
         if (userRepo.existsByEmail(request.getEmail())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Email already exists!");
         }
 
-        // 2. Create new user
-        User user = new User();
-        user.setFirstName(request.getFirstName());
-        user.setLastName(request.getLastName());
-        user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setRole(request.getRole());
-
-        // 3. Save to DB
-        User savedUser = userRepo.save(user);
-
-        // 4. Generate tokens
-        String accessToken = jwtUtils.generateToken(savedUser.getEmail(), String.valueOf(savedUser.getRole()));
-        String refreshToken = tokenService.createRefreshToken(savedUser.getId());
-
-        // 5. Return response
-        return new SignupResponse(
-                savedUser.getId(),
-                savedUser.getFirstName(),
-                savedUser.getLastName(),
-                savedUser.getEmail(),
-                savedUser.getRole(),
-                accessToken,
-                refreshToken,
-                "Signup successful"
-        );
+        return passwordHashingService.encode(request.getPassword()).thenApplyAsync(passwordHash -> {
+            // 2. Create new user
+            User user = new User();
+            user.setFirstName(request.getFirstName());
+            user.setLastName(request.getLastName());
+            user.setEmail(request.getEmail());
+            user.setPassword(passwordHash);
+            user.setRole(request.getRole());
+
+            // 3. Save to DB
+            User savedUser = userRepo.save(user);
+
+            // 4. Generate tokens
+            String accessToken = jwtUtils.generateToken(savedUser.getId(), savedUser.getEmail(), String.valueOf(savedUser.getRole()));
+            String refreshToken = tokenService.createRefreshToken(savedUser);
+
+            // 5. Return response
+            return new SignupResponse(
+                    savedUser.getId(),
+                    savedUser.getFirstName(),
+                    savedUser.getLastName(),
+                    savedUser.getEmail(),
+                    savedUser.getRole(),
+                    accessToken,
+                    refreshToken,
+                    "Signup successful"
+            );
+        }, applicationTaskExecutor);
     }
 
     // ------------------- LOGIN -------------------
-    public LoginResponse login(LoginRequest request) {
-        User user = userRepo.findByEmail(request.getEmail())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid email or password"));
-
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid email or password");
-        }
-
-        // Generate access token using email + role
-        String accessToken = jwtUtils.generateToken(user.getEmail(), String.valueOf(user.getRole()));
-
-        // Generate refresh token stored in DB
-        String refreshToken = tokenService.createRefreshToken(user.getId());
-
-        return new LoginResponse(
-                "Login successful",
-                accessToken,
-                refreshToken,
-                user.getEmail()
-        );
+    public CompletableFuture<LoginResponse> login(LoginRequest request) {
+        User user = userRepo.findByEmail(request.getEmail()).orElse(null);
+
+        // Unknown emails still pay for a BCrypt check, so they take as long as a wrong password
+        CompletableFuture<Boolean> check = user == null
+                ? passwordHashingService.matchesUnknownUser(request.getPassword())
+                : passwordHashingService.matches(request.getPassword(), user.getPassword());
+
+        return check.thenApplyAsync(matches -> {
+            if (user == null || !matches) {
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid email or password");
+            }
+
+            // Hash was made with a lower cost factor than we use now: re-hash in the background
+            passwordHashingService.upgradeIfNeeded(user.getId(), request.getPassword(), user.getPassword());
+
+            // Generate access token using email + role
+            String accessToken = jwtUtils.generateToken(user.getId(), user.getEmail(), String.valueOf(user.getRole()));
+
+            // Generate refresh token stored in DB
+            String refreshToken = tokenService.createRefreshToken(user);
+
+            return new LoginResponse(
+                    "Login successful",
+                    accessToken,
+                    refreshToken,
+                    user.getEmail()
+            );
+        }, applicationTaskExecutor);
     }
 
     // ------------------- GET PROFILE -------------------
@@ -0,0 +1,82 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedicated, bounded pool for checkout work (Mongo writes + the Stripe round trip).
+ * <p>
+ * Keeping checkout off the Tomcat request threads means a slow Stripe response can only
+ * exhaust this pool, never the threads serving course and auth endpoints. When both the
+ * threads and the queue are full, new checkouts are rejected with 503 + Retry-After.
+ */
+@Component
+public class CheckoutExecutor implements DisposableBean {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final Timer queueWait;
+    private final Timer execution;
+
+    public CheckoutExecutor(MeterRegistry meterRegistry,
+                            @Value("${checkout.executor.core-size:16}") int coreSize,
+                            @Value("${checkout.executor.max-size:32}") int maxSize,
+                            @Value("${checkout.executor.queue-capacity:200}") int queueCapacity) {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("checkout-");
+        executor.initialize();
+
+        Gauge.builder("checkout.executor.queue.depth", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Checkouts waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("checkout.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Checkouts currently running")
+                .register(meterRegistry);
+        queueWait = Timer.builder("checkout.executor.queue.wait")
+                .description("Time a checkout spent queued before a worker picked it up")
+                .register(meterRegistry);
+        execution = Timer.builder("checkout.executor.execution")
+                .description("Time spent running a checkout, Stripe call included")
+                .register(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return task.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                } finally {
+                    execution.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            }, executor);
+        } catch (TaskRejectedException e) {
+            throw new ServiceBusyException("Checkout is busy, please try again shortly", 5);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,63 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.repository.CourseRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Shared id -> Course cache used to decorate orders with current display fields.
+ * CourseService invalidates entries whenever a course changes or is deleted, but only on
+ * its own node, so other nodes can serve an entry up to the TTL old: never read a price
+ * to charge from here.
+ */
+@Component
+public class CourseCache {
+
+    private final CourseRepository courseRepository;
+    private final Cache<String, Course> courses;
+
+    public CourseCache(CourseRepository courseRepository,
+                       MeterRegistry meterRegistry,
+                       @Value("${courses.cache.max-size:10000}") long maxSize,
+                       @Value("${courses.cache.ttl:10m}") Duration ttl) {
+        this.courseRepository = courseRepository;
+        this.courses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, courses, "courses");
+    }
+
+    // Course by id, or null if it does not exist (deleted courses are not cached)
+    public Course get(String id) {
+        return courses.get(id, key -> courseRepository.findById(key).orElse(null));
+    }
+
+    // Bulk lookup for list pages: one findAllById for whatever is missing
+    public Map<String, Course> getAll(Collection<String> ids) {
+        return courses.getAll(ids, missing -> load(Set.copyOf(missing)));
+    }
+
+    public void invalidate(String id) {
+        courses.invalidate(id);
+    }
+
+    private Map<String, Course> load(Set<String> ids) {
+        return courseRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+    }
+}
@@ -0,0 +1,193 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.repository.CourseRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Read-through cache of the course catalog as ready-to-send JSON.
+ * <p>
+ * The catalog changes a few times a day but is read on every page, so the whole list is
+ * loaded once, serialized once per view (admin sees contentUrl, users don't) and also kept
+ * gzipped. A catalog read is then a byte copy: no Mongo query, no DTO mapping, no Jackson.
+ * Single-course payloads are serialized lazily from the same snapshot. Each payload carries
+ * a strong ETag, so conditional GETs are answered from memory as well.
+ * <p>
+ * CourseService invalidates it on every change. Other nodes pick the change up after the
+ * TTL at the latest; there, one thread rebuilds the expired snapshot while the others keep
+ * serving the old one, so readers never queue behind the Mongo read.
+ */
+@Component
+public class CourseCatalogCache {
+
+    // Ready-to-send body with its strong ETag; gzip is null where compressing is not worth it
+    public record Payload(byte[] json, byte[] gzip, String etag) {
+
+        // The gzipped bytes are a different representation, so they get their own tag
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gz\"";
+        }
+    }
+
+    private record Snapshot(long builtAtNanos, Map<String, Course> byId,
+                            Payload adminList, Payload userList, Map<String, Payload> courses) {
+    }
+
+    private final CourseRepository courseRepository;
+    private final ObjectMapper objectMapper;
+    private final long ttlNanos;
+    private final Counter rebuilds;
+
+    // Bumped on every invalidation; a rebuild that raced with one is not installed
+    private final AtomicLong generation = new AtomicLong();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    public CourseCatalogCache(CourseRepository courseRepository,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${courses.catalog.ttl:5m}") Duration ttl) {
+        this.courseRepository = courseRepository;
+        this.objectMapper = objectMapper;
+        this.ttlNanos = ttl.toNanos();
+        this.rebuilds = Counter.builder("courses.catalog.rebuilds")
+                .description("Times the serialized course catalog was rebuilt from MongoDB")
+                .register(meterRegistry);
+    }
+
+    public Payload list(boolean isAdmin) {
+        Snapshot current = current();
+        return isAdmin ? current.adminList() : current.userList();
+    }
+
+    // Single course, or null if it does not exist
+    public Payload course(String id, boolean isAdmin) {
+        Snapshot current = current();
+        Course course = current.byId().get(id);
+        if (course == null) {
+            return null;
+        }
+        return current.courses().computeIfAbsent((isAdmin ? "admin:" : "user:") + id,
+                key -> payload(serialize(CourseService.mapToDto(course, isAdmin)), false, isAdmin));
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && isFresh(current)) {
+            return current;
+        }
+
+        if (current != null) {
+            // Expired: whoever gets the lock refreshes, everyone else serves the old snapshot meanwhile
+            if (!rebuildLock.tryLock()) {
+                return current;
+            }
+        } else {
+            // Nothing to serve (startup, or invalidated by a local edit that readers must see): wait
+            rebuildLock.lock();
+        }
+        try {
+            return rebuild();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return System.nanoTime() - current.builtAtNanos() < ttlNanos;
+    }
+
+    // Caller holds rebuildLock; threads that waited for it reuse the snapshot the first one built
+    private Snapshot rebuild() {
+        Snapshot current = snapshot;
+        if (current != null && isFresh(current)) {
+            return current;
+        }
+
+        long startedGeneration = generation.get();
+        List<Course> courses = courseRepository.findAll();
+
+        Snapshot built = new Snapshot(
+                System.nanoTime(),
+                courses.stream().collect(Collectors.toUnmodifiableMap(Course::getId, Function.identity())),
+                render(courses, true),
+                render(courses, false),
+                new ConcurrentHashMap<>()
+        );
+        rebuilds.increment();
+
+        // Invalidated while we were reading: serve this once, but don't keep it
+        if (generation.get() == startedGeneration) {
+            snapshot = built;
+        }
+        return built;
+    }
+
+    private Payload render(List<Course> courses, boolean isAdmin) {
+        byte[] json = serialize(courses.stream().map(course -> CourseService.mapToDto(course, isAdmin)).toList());
+        return payload(json, true, isAdmin);
+    }
+
+    /**
+     * The ETag is the view plus a digest of the exact bytes, computed once per snapshot.
+     * Unlike a per-node counter it is the same on every node and across restarts, and it
+     * also changes when a TTL rebuild picks up an edit made on another node.
+     */
+    private static Payload payload(byte[] json, boolean compress, boolean isAdmin) {
+        String digest = HexFormat.of().formatHex(sha256(json), 0, 16);
+        String etag = "\"" + (isAdmin ? "admin-" : "user-") + digest + "\"";
+        return new Payload(json, compress ? gzip(json) : null, etag);
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // mandatory in every JRE
+        }
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize course catalog", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,104 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.model.CourseChange;
+import com.app.lurnityBackend.repository.CourseChangeRepository;
+import com.app.lurnityBackend.repository.CourseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the per-node course caches (CourseCache, CourseCatalogCache, CourseSearchIndex) in
+ * step with course writes made on other nodes.
+ * <p>
+ * The node that writes a course invalidates its own caches directly and then records a
+ * CourseChange. Every node polls for changes recorded since its last sync and evicts those
+ * courses, re-reading them from MongoDB for the search index (a course that is gone is
+ * removed). An edit or delete is therefore visible everywhere within the poll interval
+ * rather than the caches' TTL.
+ */
+@Service
+public class CourseChangeFeed {
+
+    private final CourseChangeRepository changeRepository;
+    private final CourseRepository courseRepository;
+    private final CourseCache courseCache;
+    private final CourseCatalogCache catalogCache;
+    private final CourseSearchIndex searchIndex;
+
+    // Other nodes' writes can land slightly "in the past" (clock skew, in-flight inserts)
+    private final Duration syncOverlap;
+
+    // Markers already acted on (own writes included), so the overlap doesn't re-apply them
+    private final Map<String, Instant> applied = new ConcurrentHashMap<>();
+
+    private volatile Instant lastSync;
+
+    public CourseChangeFeed(CourseChangeRepository changeRepository,
+                            CourseRepository courseRepository,
+                            CourseCache courseCache,
+                            CourseCatalogCache catalogCache,
+                            CourseSearchIndex searchIndex,
+                            @Value("${courses.sync.overlap:10s}") Duration syncOverlap) {
+        this.changeRepository = changeRepository;
+        this.courseRepository = courseRepository;
+        this.courseCache = courseCache;
+        this.catalogCache = catalogCache;
+        this.searchIndex = searchIndex;
+        this.syncOverlap = syncOverlap;
+    }
+
+    // Tell the other nodes this course changed (call after the write to the courses collection)
+    public void publish(String courseId) {
+        CourseChange change = changeRepository.insert(new CourseChange(null, courseId, Instant.now()));
+        applied.put(change.getId(), change.getChangedAt());
+    }
+
+    // The caches start empty (or load from MongoDB), so only changes from now on matter
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        lastSync = Instant.now();
+    }
+
+    @Scheduled(fixedDelayString = "${courses.sync.refresh-ms:2000}")
+    public void refresh() {
+        Instant since = lastSync;
+        if (since == null) {
+            return; // not started yet
+        }
+        Instant startedAt = Instant.now();
+        Instant from = since.minus(syncOverlap);
+        Set<String> courseIds = new HashSet<>();
+        for (CourseChange change : changeRepository.findByChangedAtAfter(from)) {
+            if (applied.putIfAbsent(change.getId(), change.getChangedAt()) == null) {
+                courseIds.add(change.getCourseId());
+            }
+        }
+
+        if (!courseIds.isEmpty()) {
+            for (String courseId : courseIds) {
+                courseCache.invalidate(courseId);
+                Optional<Course> course = courseRepository.findById(courseId);
+                if (course.isPresent()) {
+                    searchIndex.index(course.get());
+                } else {
+                    searchIndex.remove(courseId);
+                }
+            }
+            catalogCache.invalidate();
+        }
+        lastSync = startedAt;
+        applied.values().removeIf(changedAt -> changedAt.isBefore(from));
+    }
+}
@@ -0,0 +1,242 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.repository.CourseRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over course titles and descriptions.
+ * <p>
+ * Terms live in a sorted map, so the last (possibly unfinished) word of a query is matched
+ * as a prefix for search-as-you-type, while earlier words must match whole terms. Every
+ * query word has to match; results are ranked by TF-IDF with title hits weighted above
+ * description hits. Built at startup, kept current by CourseService on every change, and
+ * rebuilt periodically so that changes made on other nodes show up here too.
+ */
+@Component
+public class CourseSearchIndex {
+
+    private static final double TITLE_BOOST = 3.0;
+    private static final double PREFIX_PENALTY = 0.5; // a prefix hit is a weaker signal than a whole word
+
+    // Occurrences of one term in one course
+    private record Posting(int inTitle, int inDescription) {
+    }
+
+    private final CourseRepository courseRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (courseId -> posting); guarded by lock
+    private NavigableMap<String, Map<String, Posting>> postings = new TreeMap<>();
+    private Map<String, Course> courses = new HashMap<>();
+
+    // While a rebuild is reading MongoDB: courseId -> latest indexed course (empty = removed).
+    // Replayed onto the rebuilt copy before it is installed, so no update is lost. Guarded by lock.
+    private Map<String, Optional<Course>> duringRebuild;
+
+    public CourseSearchIndex(CourseRepository courseRepository) {
+        this.courseRepository = courseRepository;
+    }
+
+    // Best matches first, at most limit
+    public List<Course> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<String, Double> scores = null;
+            for (int i = 0; i < words.size(); i++) {
+                boolean prefix = i == words.size() - 1;
+                Map<String, Double> wordScores = score(words.get(i), prefix);
+
+                // AND: keep only courses that matched every word so far
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    scores.keySet().retainAll(wordScores.keySet());
+                    scores.replaceAll((id, score) -> score + wordScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(entry -> courses.get(entry.getKey()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Add or replace one course
+    public void index(Course course) {
+        lock.writeLock().lock();
+        try {
+            remove(postings, courses, course.getId());
+            add(postings, courses, course);
+            if (duringRebuild != null) {
+                duringRebuild.put(course.getId(), Optional.of(course));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String courseId) {
+        lock.writeLock().lock();
+        try {
+            remove(postings, courses, courseId);
+            if (duringRebuild != null) {
+                duringRebuild.put(courseId, Optional.empty());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Full rebuild off-lock, then a swap, so searches are never blocked by the Mongo read
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${courses.search.rebuild-ms:300000}",
+            fixedDelayString = "${courses.search.rebuild-ms:300000}")
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            duringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            NavigableMap<String, Map<String, Posting>> newPostings = new TreeMap<>();
+            Map<String, Course> newCourses = new HashMap<>();
+            for (Course course : courseRepository.findAll()) {
+                add(newPostings, newCourses, course);
+            }
+
+            lock.writeLock().lock();
+            try {
+                // Changes made here while we were reading may be missing from the copy: replay them
+                duringRebuild.forEach((courseId, course) -> {
+                    remove(newPostings, newCourses, courseId);
+                    course.ifPresent(c -> add(newPostings, newCourses, c));
+                });
+                postings = newPostings;
+                courses = newCourses;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                duringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Per-course score contribution of one query word (caller holds the read lock)
+    private Map<String, Double> score(String word, boolean prefix) {
+        Map<String, Map<String, Posting>> matches = prefix
+                ? postings.subMap(word, true, word + Character.MAX_VALUE, false)
+                : exact(word);
+
+        Map<String, Double> scores = new HashMap<>();
+        for (Map.Entry<String, Map<String, Posting>> term : matches.entrySet()) {
+            double idf = Math.log(1.0 + (double) courses.size() / term.getValue().size());
+            double weight = term.getKey().equals(word) ? 1.0 : PREFIX_PENALTY;
+
+            for (Map.Entry<String, Posting> hit : term.getValue().entrySet()) {
+                Posting posting = hit.getValue();
+                double tf = TITLE_BOOST * posting.inTitle() + posting.inDescription();
+                // A course matching the word through several expansions keeps its best one
+                scores.merge(hit.getKey(), tf * idf * weight, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private Map<String, Map<String, Posting>> exact(String word) {
+        Map<String, Posting> hits = postings.get(word);
+        return hits == null ? Map.of() : Map.of(word, hits);
+    }
+
+    private static void add(NavigableMap<String, Map<String, Posting>> postings,
+                                  Map<String, Course> courses, Course course) {
+        Map<String, Integer> inTitle = countTerms(course.getTitle());
+        Map<String, Integer> inDescription = countTerms(course.getDescription());
+
+        Set<String> terms = new HashSet<>(inTitle.keySet());
+        terms.addAll(inDescription.keySet());
+        for (String term : terms) {
+            postings.computeIfAbsent(term, t -> new HashMap<>())
+                    .put(course.getId(), new Posting(inTitle.getOrDefault(term, 0), inDescription.getOrDefault(term, 0)));
+        }
+        courses.put(course.getId(), course);
+    }
+
+    private static void remove(NavigableMap<String, Map<String, Posting>> postings,
+                               Map<String, Course> courses, String courseId) {
+        Course existing = courses.remove(courseId);
+        if (existing == null) {
+            return;
+        }
+        Set<String> terms = new HashSet<>(tokenize(existing.getTitle()));
+        terms.addAll(tokenize(existing.getDescription()));
+        for (String term : terms) {
+            Map<String, Posting> hits = postings.get(term);
+            if (hits != null) {
+                hits.remove(courseId);
+                if (hits.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static Map<String, Integer> countTerms(String text) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String term : tokenize(text)) {
+            counts.merge(term, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    // Lower-cased runs of letters/digits
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
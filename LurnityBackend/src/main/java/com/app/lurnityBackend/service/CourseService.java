@@ -1,21 +1,37 @@
 package com.app.lurnityBackend.service;
 
 import com.app.lurnityBackend.dto.CourseRequestDto;
+import com.app.lurnityBackend.dto.CoursePageDto;
 import com.app.lurnityBackend.dto.CourseResponseDto;
+import com.app.lurnityBackend.dto.CourseUpdateDto;
 import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.model.CourseSort;
 import com.app.lurnityBackend.repository.CourseRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class CourseService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_SEARCH_RESULTS = 10;
+
     private final CourseRepository courseRepository;
+    private final CourseCache courseCache;
+    private final CourseCatalogCache catalogCache;
+    private final CourseSearchIndex searchIndex;
+    private final CourseChangeFeed changeFeed;
 
     // ✅ Create new course (always admin action)
     public CourseResponseDto createCourse(CourseRequestDto request) {
@@ -25,28 +41,104 @@ public class CourseService {
         course.setPrice(request.getPrice());
         course.setContentUrl(request.getContentUrl());
         course.setImageUrl(request.getImageUrl());
+        course.setVersion(0L);
 
         Course saved = courseRepository.save(course);
+        catalogCache.invalidate();
+        searchIndex.index(saved);
+        changeFeed.publish(saved.getId());
 
         // Admin created → return with full details
         return mapToDto(saved, true);
     }
 
-    // ✅ Get all courses
-    public List<CourseResponseDto> getAllCourses(boolean isAdmin) {
-        return courseRepository.findAll()
-                .stream()
+    // ✅ Get all courses (pre-serialized JSON from the catalog cache)
+    public CourseCatalogCache.Payload getAllCourses(boolean isAdmin) {
+        return catalogCache.list(isAdmin);
+    }
+
+    // ✅ Get course by ID (pre-serialized JSON from the catalog cache)
+    public CourseCatalogCache.Payload getCourseById(String id, boolean isAdmin) {
+        CourseCatalogCache.Payload course = catalogCache.course(id, isAdmin);
+        if (course == null) {
+            throw new RuntimeException("Course not found with id: " + id);
+        }
+        return course;
+    }
+
+    // ✅ One keyset page of the catalog, sorted and optionally filtered by price
+    public CoursePageDto getCoursePage(boolean isAdmin, CourseSort sort, Double minPrice, Double maxPrice,
+                                       String cursor, Integer limit) {
+        // A price range is only index-bounded on price_id, so it comes with (and implies) sort=price;
+        // on the title or _id order it would scan every course to fill a page
+        boolean priceFiltered = minPrice != null || maxPrice != null;
+        if (priceFiltered && sort != null && sort != CourseSort.PRICE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "minPrice/maxPrice can only be combined with sort=price");
+        }
+        CourseSort order = sort != null ? sort : priceFiltered ? CourseSort.PRICE : CourseSort.NEWEST;
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Course after = cursor == null || cursor.isBlank() ? null : decodeCursor(cursor, order);
+
+        // Fetch one extra row to know whether another page exists
+        List<Course> courses = courseRepository.findPage(order, minPrice, maxPrice, after, pageSize + 1);
+
+        String nextCursor = null;
+        if (courses.size() > pageSize) {
+            courses = courses.subList(0, pageSize);
+            nextCursor = encodeCursor(courses.get(pageSize - 1), order);
+        }
+
+        return new CoursePageDto(
+                courses.stream().map(course -> mapToDto(course, isAdmin)).toList(),
+                nextCursor
+        );
+    }
+
+    // ✅ Full-text search over title + description, served from the in-memory index
+    public List<CourseResponseDto> searchCourses(String query, Integer limit, boolean isAdmin) {
+        int maxResults = limit == null ? DEFAULT_SEARCH_RESULTS : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return searchIndex.search(query, maxResults).stream()
                 .map(course -> mapToDto(course, isAdmin))
-                .collect(Collectors.toList());
+                .toList();
     }
 
-    // ✅ Get course by ID
-    public CourseResponseDto getCourseById(String id, boolean isAdmin) {
-        Optional<Course> courseOpt = courseRepository.findById(id);
-        Course course = courseOpt.orElseThrow(() ->
-                new RuntimeException("Course not found with id: " + id));
+    // ✅ Update a course (admin). PUT replaces every editable field, PATCH only the non-null ones.
+    // Only fields that actually differ are written ($set), guarded by the version the client read.
+    public CourseResponseDto updateCourse(String id, CourseUpdateDto request, boolean partial) {
+        if (request.getVersion() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "version is required");
+        }
+        validateUpdate(request, partial);
+
+        Course current = courseRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found with id: " + id));
+        long currentVersion = current.getVersion() == null ? 0L : current.getVersion();
+        if (currentVersion != request.getVersion()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Course was modified, reload and try again");
+        }
 
-        return mapToDto(course, isAdmin);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfChanged(changes, "title", current.getTitle(), request.getTitle(), partial);
+        putIfChanged(changes, "description", current.getDescription(), request.getDescription(), partial);
+        putIfChanged(changes, "price", current.getPrice(), request.getPrice(), partial);
+        putIfChanged(changes, "contentUrl", current.getContentUrl(), request.getContentUrl(), partial);
+        putIfChanged(changes, "imageUrl", current.getImageUrl(), request.getImageUrl(), partial);
+
+        if (changes.isEmpty()) {
+            return mapToDto(current, true);
+        }
+
+        // Someone may have written between our read and this update: the version check catches it
+        Course updated = courseRepository.updateFields(id, currentVersion, changes)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT, "Course was modified, reload and try again"));
+
+        courseCache.invalidate(id);
+        catalogCache.invalidate();
+        searchIndex.index(updated);
+        changeFeed.publish(id);
+
+        return mapToDto(updated, true);
     }
 
     // ✅ Delete course
@@ -55,17 +147,82 @@ public class CourseService {
             throw new RuntimeException("Course not found with id: " + id);
         }
         courseRepository.deleteById(id);
+        courseCache.invalidate(id);
+        catalogCache.invalidate();
+        searchIndex.remove(id);
+        changeFeed.publish(id);
+    }
+
+    // Cursor = base64url("<sort>:<id>:<n | v + sort value>") of the last course on the page
+    static String encodeCursor(Course last, CourseSort sort) {
+        Object value = switch (sort) {
+            case PRICE -> last.getPrice();
+            case TITLE -> last.getTitle();
+            case NEWEST -> "";
+        };
+        String position = sort + ":" + last.getId() + ":" + (value == null ? "n" : "v" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Course decodeCursor(String cursor, CourseSort sort) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split(":", 3);
+            if (parts.length != 3 || !parts[0].equals(sort.name()) || parts[1].isBlank() || parts[2].isEmpty()) {
+                throw new IllegalArgumentException();
+            }
+
+            Course after = new Course();
+            after.setId(parts[1]);
+            String value = parts[2].startsWith("v") ? parts[2].substring(1) : null;
+            if (sort == CourseSort.PRICE && value != null) {
+                after.setPrice(Double.parseDouble(value));
+            } else if (sort == CourseSort.TITLE) {
+                after.setTitle(value);
+            }
+            return after;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    // PUT replaces the course, so title and price must be there; PATCH may omit them but not blank them.
+    // Checkout charges course.price, so it has to be a real, non-negative amount.
+    private static void validateUpdate(CourseUpdateDto request, boolean partial) {
+        if (!partial && request.getTitle() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "title is required");
+        }
+        if (request.getTitle() != null && request.getTitle().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "title must not be blank");
+        }
+        if (!partial && request.getPrice() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "price is required");
+        }
+        if (request.getPrice() != null && !(Double.isFinite(request.getPrice()) && request.getPrice() >= 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "price must be a number >= 0");
+        }
+    }
+
+    private static void putIfChanged(Map<String, Object> changes, String field,
+                                     Object current, Object requested, boolean partial) {
+        if (partial && requested == null) {
+            return; // PATCH: absent means "leave as is"
+        }
+        if (!Objects.equals(current, requested)) {
+            changes.put(field, requested);
+        }
     }
 
-    // 🔄 Mapper (only admin sees contentUrl)
-    private CourseResponseDto mapToDto(Course course, boolean isAdmin) {
+    // 🔄 Mapper (only admin sees contentUrl), shared with the catalog cache
+    static CourseResponseDto mapToDto(Course course, boolean isAdmin) {
         return new CourseResponseDto(
                 course.getId(),
                 course.getTitle(),
                 course.getDescription(),
                 course.getPrice(),
                 isAdmin ? course.getContentUrl() : null, // 👈 only admin sees link
-                course.getImageUrl()
+                course.getImageUrl(),
+                course.getVersion()
         );
     }
 }
@@ -0,0 +1,118 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.model.User;
+import com.app.lurnityBackend.repository.OrderRepository;
+import com.app.lurnityBackend.repository.UserRepo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Answers "does this user own this course?" from memory, for read paths (course access).
+ * Writes that must not be fooled by a stale entry, such as the duplicate-purchase guard,
+ * ask MongoDB directly.
+ * <p>
+ * Each cached entry is the full set of course ids a user has paid for, loaded once from
+ * MongoDB on a miss and then kept current by the Stripe webhook. Entries also expire after
+ * a TTL so that nodes which did not receive the webhook converge on the database state.
+ */
+@Service
+public class EntitlementService {
+
+    private final OrderRepository orderRepository;
+    private final UserRepo userRepository;
+
+    // userId -> immutable set of purchased course ids
+    private final Cache<String, Set<String>> purchasedCourses;
+
+    // email -> userId; expires too, since an account can be deleted and its email registered again
+    private final Cache<String, String> userIdsByEmail;
+
+    public EntitlementService(OrderRepository orderRepository,
+                              UserRepo userRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${entitlements.cache.max-users:100000}") long maxUsers,
+                              @Value("${entitlements.cache.ttl:5m}") Duration ttl) {
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+
+        this.purchasedCourses = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.userIdsByEmail = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, purchasedCourses, "entitlements");
+        CaffeineCacheMetrics.monitor(meterRegistry, userIdsByEmail, "entitlement-user-ids");
+    }
+
+    // Has the user successfully paid for the course?
+    public boolean hasPurchased(String userId, String courseId) {
+        return purchasedCourses.get(userId, this::loadPurchasedCourses).contains(courseId);
+    }
+
+    // Purchased course ids of several users: cached users cost nothing, the rest one query together
+    public Map<String, Set<String>> purchasedCoursesOf(Collection<String> userIds) {
+        return purchasedCourses.getAll(userIds, this::loadPurchasedCoursesOf);
+    }
+
+    // Same check for the authenticated caller, who is only known by email
+    public boolean hasPurchasedByEmail(String email, String courseId) {
+        String userId = userIdsByEmail.get(email, this::loadUserId);
+        return hasPurchased(userId, courseId);
+    }
+
+    // A payment succeeded: add the course to the cached set (if the user is cached at all)
+    public void grant(String userId, String courseId) {
+        purchasedCourses.asMap().computeIfPresent(userId, (id, courses) -> {
+            Set<String> updated = new HashSet<>(courses);
+            updated.add(courseId);
+            return Set.copyOf(updated);
+        });
+    }
+
+    // A payment failed or was refunded: drop the entry so the next check reloads from MongoDB
+    public void evict(String userId) {
+        purchasedCourses.invalidate(userId);
+    }
+
+    private Set<String> loadPurchasedCourses(String userId) {
+        return orderRepository.findPurchasedByUserId(userId).stream()
+                .map(order -> order.getCourse().getId())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private Map<String, Set<String>> loadPurchasedCoursesOf(Set<? extends String> userIds) {
+        Map<String, Set<String>> loaded = new HashMap<>();
+        userIds.forEach(userId -> loaded.put(userId, new HashSet<>()));
+        orderRepository.findPurchasedByUserIdIn(List.copyOf(userIds))
+                .forEach(order -> loaded.get(order.getUserId()).add(order.getCourse().getId()));
+        loaded.replaceAll((userId, courses) -> Set.copyOf(courses));
+        return loaded;
+    }
+
+    private String loadUserId(String email) {
+        return userRepository.findByEmail(email)
+                .map(User::getId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.app.lurnityBackend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of requests sent with an Idempotency-Key header.
+ * <p>
+ * The first request for a key runs the action; repeats inside the window (double clicks,
+ * client retries) get the same future back, so they join an in-flight checkout or receive
+ * its cached response instead of creating another Order and PaymentIntent.
+ * Failed attempts are forgotten immediately so the client can retry with the same key.
+ * A key is bound to the request it first arrived with: reusing it for a different request
+ * is a client bug and gets 422 rather than the other request's response.
+ */
+@Service
+public class IdempotencyService {
+
+    private final Cache<String, Attempt> results;
+
+    // What the key was first used for, and that request's (possibly still running) outcome
+    private record Attempt(Object fingerprint, CompletableFuture<?> result) {
+    }
+
+    public IdempotencyService(MeterRegistry meterRegistry,
+                              @Value("${idempotency.window:10m}") Duration window,
+                              @Value("${idempotency.max-keys:100000}") long maxKeys) {
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(window)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, results, "idempotency");
+    }
+
+    /**
+     * Run the action once per (scope, caller, key). A null or blank key disables de-duplication.
+     * The fingerprint identifies the request (e.g. its body, compared with equals); a repeat
+     * whose fingerprint differs from the first request's is rejected with 422.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> execute(String scope, String caller, String key, Object fingerprint,
+                                            Supplier<CompletableFuture<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+
+        String cacheKey = scope + ":" + caller + ":" + key;
+        Attempt attempt = results.asMap()
+                .computeIfAbsent(cacheKey, k -> new Attempt(fingerprint, action.get()));
+
+        if (!Objects.equals(attempt.fingerprint(), fingerprint)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+
+        CompletableFuture<T> result = (CompletableFuture<T>) attempt.result();
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                results.asMap().remove(cacheKey, attempt);
+            }
+        });
+        return result;
+    }
+}
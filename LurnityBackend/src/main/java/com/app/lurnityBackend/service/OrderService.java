@@ -1,86 +1,165 @@
 package com.app.lurnityBackend.service;
 
+import com.app.lurnityBackend.dto.OrderPageDto;
 import com.app.lurnityBackend.dto.OrderRequestDto;
 import com.app.lurnityBackend.dto.OrderResponseDto;
 import com.app.lurnityBackend.model.Order;
 import com.app.lurnityBackend.model.PaymentStatus;
 import com.app.lurnityBackend.model.User;
 import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.model.CourseSnapshot;
 import com.app.lurnityBackend.repository.CourseRepository;
 import com.app.lurnityBackend.repository.OrderRepository;
 import com.app.lurnityBackend.repository.UserRepo;
-import com.stripe.Stripe;
+import com.app.lurnityBackend.security.TokenHashing;
+import com.stripe.StripeClient;
+import com.stripe.exception.IdempotencyException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.PaymentIntentCreateParams;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 @Service
 public class OrderService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final OrderRepository orderRepository;
     private final UserRepo userRepository;
     private final CourseRepository courseRepository;
+    private final CourseCache courseCache;
+    private final EntitlementService entitlementService;
+    private final StripeClient stripeClient;
+    private final CheckoutExecutor checkoutExecutor;
+    private final IdempotencyService idempotencyService;
+
+    // A PENDING order younger than this is handed back instead of opening a new PaymentIntent
+    @Value("${orders.pending-reuse-window:30m}")
+    private Duration pendingReuseWindow;
+
+    // A buyer is waiting on checkout: give up sooner than the client-wide Stripe defaults
+    @Value("${stripe.checkout.read-timeout-ms:10000}")
+    private int checkoutReadTimeoutMs;
+
+    @Value("${stripe.checkout.max-network-retries:1}")
+    private int checkoutMaxNetworkRetries;
+
+    // ✅ Checkout off the request thread: runs createOrder on the bounded checkout pool
+    public CompletableFuture<OrderResponseDto> createOrderAsync(String userEmail, OrderRequestDto request,
+                                                                boolean isAdmin, String idempotencyKey) {
+        return idempotencyService.execute("order-create", userEmail, idempotencyKey, request,
+                () -> checkoutExecutor.submit(() -> createOrder(userEmail, request, isAdmin, idempotencyKey)));
+    }
 
-    @Value("${stripe.api.key}")
-    private String stripeApiKey;
+    // ✅ Same for payment retries
+    public CompletableFuture<OrderResponseDto> retryPaymentAsync(String orderId, String userEmail,
+                                                                 boolean isAdmin, String idempotencyKey) {
+        return idempotencyService.execute("order-retry", userEmail, idempotencyKey, orderId,
+                () -> checkoutExecutor.submit(() -> retryPayment(orderId, userEmail, isAdmin, idempotencyKey)));
+    }
 
     // ✅ Create a new order with Stripe payment
-    public OrderResponseDto createOrder(String userEmail, OrderRequestDto request, boolean isAdmin) throws StripeException {
-        Stripe.apiKey = stripeApiKey;
-
+    public OrderResponseDto createOrder(String userEmail, OrderRequestDto request, boolean isAdmin,
+                                        String idempotencyKey) throws StripeException {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        // The charged price is read from MongoDB (one _id lookup): the course cache is per node
+        // and keeps serving the old price after an edit made on another node until its TTL
         Course course = courseRepository.findById(request.getCourseId())
                 .orElseThrow(() -> new RuntimeException("Course not found"));
 
-        // 🚫 Prevent duplicate purchases
-        boolean alreadyPurchased = orderRepository.findAll().stream()
-                .anyMatch(order ->
-                        order.getUserId().equals(user.getId()) &&
-                                order.getCourse().getId().equals(course.getId()) &&
-                                order.getPaymentStatus() == PaymentStatus.SUCCESS
-                );
+        String stripeKey = idempotencyKey == null ? null : "order-create:" + user.getId() + ":" + idempotencyKey;
+        String keyHash = stripeKey == null ? null : TokenHashing.sha256(stripeKey);
 
-        if (alreadyPurchased) {
+        // 🔁 Replay of a create that already went through, after the in-memory window or on another node
+        if (keyHash != null) {
+            Optional<Order> replayed = orderRepository.findByIdempotencyKeyHash(keyHash);
+            if (replayed.isPresent()) {
+                return mapToDto(replayed.get(), isAdmin);
+            }
+        }
+
+        // 🚫 Prevent duplicate purchases: authoritative check against MongoDB, not the entitlement
+        // cache, which may lag a refund or a payment confirmed on another node
+        if (orderRepository.existsByUserIdAndCourseIdAndPaymentStatus(user.getId(), course.getId(),
+                PaymentStatus.SUCCESS)) {
             throw new RuntimeException("You have already purchased this course.");
         }
 
-        // 1️⃣ Create Order entity first
+        // ♻️ A checkout for this course is already open: hand back its PaymentIntent,
+        // or give it a fresh one if it went stale (only one PENDING order per user and course)
+        Optional<Order> pending = orderRepository.findFirstByUserIdAndCourseIdAndPaymentStatusOrderByCreatedAtDesc(
+                user.getId(), course.getId(), PaymentStatus.PENDING);
+        if (pending.isPresent()) {
+            return isReusable(pending.get())
+                    ? mapToDto(pending.get(), isAdmin)
+                    : reopenPayment(pending.get(), stripeKey, isAdmin);
+        }
+
+        // 1️⃣ Build the Order with a client-generated id, so the PaymentIntent metadata can reference it
+        Date now = new Date();
         Order order = Order.builder()
+                .id(new ObjectId().toHexString())
+                .idempotencyKeyHash(keyHash)
                 .userId(user.getId())
-                .course(course)
+                .course(CourseSnapshot.of(course))
                 .paymentStatus(PaymentStatus.PENDING)
-                .createdAt(new Date())
+                .createdAt(now)
+                .paymentIssuedAt(now)
                 .build();
-        orderRepository.save(order);
 
-        // 2️⃣ Create Stripe PaymentIntent
-        PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
-                .setAmount((long) (course.getPrice() * 100)) // amount in cents
-                .setCurrency("usd")
-                .putAllMetadata(Map.of(
-                        "orderId", String.valueOf(order.getId()),
-                        "userId", String.valueOf(user.getId()),
-                        "courseId", String.valueOf(course.getId())
-                ))
-                .build();
-
-        PaymentIntent paymentIntent = PaymentIntent.create(params);
+        // 2️⃣ Create Stripe PaymentIntent (same key, same intent)
+        PaymentIntent paymentIntent;
+        try {
+            paymentIntent = createPaymentIntent(order, stripeKey);
+        } catch (IdempotencyException e) {
+            // The key already opened an intent for an earlier attempt's order id. Hand back that
+            // order if it was saved; if the attempt died before its insert, open a fresh intent.
+            Optional<Order> replayed = orderRepository.findByIdempotencyKeyHash(keyHash);
+            if (replayed.isPresent()) {
+                return mapToDto(replayed.get(), isAdmin);
+            }
+            paymentIntent = createPaymentIntent(order, null);
+        }
 
-        // 3️⃣ Update order with Stripe details
+        // 3️⃣ Single insert, already carrying the Stripe details
         order.setPaymentId(paymentIntent.getId());
+        order.setPaymentIds(List.of(paymentIntent.getId()));
         order.setClientSecret(paymentIntent.getClientSecret());
-        orderRepository.save(order);
+        try {
+            orderRepository.insert(order);
+        } catch (DuplicateKeyException e) {
+            // Same key replayed concurrently (unique idempotencyKeyHash), or a concurrent click opened
+            // the course's PENDING order first (unique partial index): either way, return the order that won
+            Optional<Order> sameKey = keyHash == null ? Optional.empty() : orderRepository.findByIdempotencyKeyHash(keyHash);
+            Order existing = sameKey
+                    .or(() -> orderRepository.findFirstByUserIdAndCourseIdAndPaymentStatusOrderByCreatedAtDesc(
+                            user.getId(), course.getId(), PaymentStatus.PENDING))
+                    .orElseThrow(() -> e);
+            return mapToDto(existing, isAdmin);
+        }
 
         // 4️⃣ Return clientSecret to frontend
         return mapToDto(order, isAdmin);
@@ -91,26 +170,41 @@ public class OrderService {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        return orderRepository.findAll().stream()
-                .filter(order -> order.getUserId().equals(user.getId())) // ✅ only paid
-                .map(order -> mapToDto(order, isAdmin))
-                .collect(Collectors.toList());
+        return mapToDtos(orderRepository.findHistoryByUserId(user.getId()), isAdmin);
     }
 
-    // Get all orders (admin only)
-    public List<OrderResponseDto> getAllOrders(String adminEmail, boolean isAdmin) {
+    // Get all orders (admin only), one keyset page at a time
+    public OrderPageDto getAllOrders(String adminEmail, boolean isAdmin, PaymentStatus status,
+                                     String userId, String courseId, String cursor, Integer limit) {
         userRepository.findByEmail(adminEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        return orderRepository.findAll().stream()
-                .map(order -> mapToDto(order, isAdmin))
-                .collect(Collectors.toList());
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        Date afterCreatedAt = null;
+        String afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterCreatedAt = new Date(Long.parseLong(position[0]));
+            afterId = position[1];
+        }
+
+        // Fetch one extra row to know whether another page exists
+        List<Order> orders = orderRepository.findPage(status, userId, courseId, afterCreatedAt, afterId, pageSize + 1);
+
+        String nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = orders.subList(0, pageSize);
+            Order last = orders.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+
+        return new OrderPageDto(mapToDtos(orders, isAdmin), nextCursor);
     }
 
     // Retry payment method
-    public OrderResponseDto retryPayment(String orderId, String userEmail, boolean isAdmin) throws StripeException {
-        Stripe.apiKey = stripeApiKey;
-
+    public OrderResponseDto retryPayment(String orderId, String userEmail, boolean isAdmin,
+                                         String idempotencyKey) throws StripeException {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
@@ -125,27 +219,13 @@ public class OrderService {
             throw new RuntimeException("Payment already completed for this order.");
         }
 
-        Course course = order.getCourse();
-
-        PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
-                .setAmount((long) (course.getPrice() * 100))
-                .setCurrency("usd")
-                .putAllMetadata(Map.of(
-                        "orderId", order.getId(),
-                        "userId", user.getId(),
-                        "courseId", course.getId()
-                ))
-                .build();
-
-        PaymentIntent paymentIntent = PaymentIntent.create(params);
-
-        order.setPaymentStatus(PaymentStatus.PENDING);
-        order.setPaymentId(paymentIntent.getId());
-        order.setClientSecret(paymentIntent.getClientSecret());
-        order.setCreatedAt(new Date());
-        orderRepository.save(order);
+        // ♻️ The current PaymentIntent is still live, the client can confirm it again
+        if (isReusable(order)) {
+            return mapToDto(order, isAdmin);
+        }
 
-        return mapToDto(order, isAdmin);
+        String stripeKey = idempotencyKey == null ? null : "order-retry:" + order.getId() + ":" + idempotencyKey;
+        return reopenPayment(order, stripeKey, isAdmin);
     }
 
     // Cancel an order
@@ -163,18 +243,131 @@ public class OrderService {
         orderRepository.deleteById(orderId);
     }
 
-    // ✅ Mapper utility with role & payment checks
+    // Give an unpaid order a new PaymentIntent and make it PENDING again
+    private OrderResponseDto reopenPayment(Order order, String stripeKey, boolean isAdmin) throws StripeException {
+        PaymentIntent paymentIntent = createPaymentIntent(order, stripeKey);
+        String previousPaymentId = order.getPaymentId();
+
+        order.setPaymentStatus(PaymentStatus.PENDING);
+        order.setPaymentId(paymentIntent.getId());
+        order.setClientSecret(paymentIntent.getClientSecret());
+        order.setPaymentIssuedAt(new Date());
+
+        // $set only the payment fields; a webhook may have marked it paid while we were talking to Stripe.
+        // createdAt stays: it is the order's position in the history and the admin keyset listing.
+        try {
+            if (!orderRepository.resetPayment(order.getId(), previousPaymentId, order.getPaymentId(),
+                    order.getClientSecret(), order.getPaymentIssuedAt())) {
+                throw new RuntimeException("Payment already completed for this order.");
+            }
+        } catch (DuplicateKeyException e) {
+            // Another order for this course is already PENDING (unique partial index)
+            throw new RuntimeException("A checkout for this course is already open.");
+        }
+
+        return mapToDto(order, isAdmin);
+    }
+
+    // PENDING, already has a PaymentIntent, and that intent was opened recently enough to still be confirmable
+    private boolean isReusable(Order order) {
+        // Orders written before paymentIssuedAt existed had their createdAt moved on every retry instead
+        Date issuedAt = order.getPaymentIssuedAt() != null ? order.getPaymentIssuedAt() : order.getCreatedAt();
+        return order.getPaymentStatus() == PaymentStatus.PENDING
+                && order.getPaymentId() != null
+                && order.getClientSecret() != null
+                && issuedAt != null
+                && issuedAt.toInstant().isAfter(Instant.now().minus(pendingReuseWindow));
+    }
+
+    // Create a PaymentIntent for the order through the shared StripeClient, with checkout's own
+    // timeout and retry budget. The idempotency key (optional) is forwarded to Stripe so a
+    // replayed request cannot open a second intent.
+    private PaymentIntent createPaymentIntent(Order order, String idempotencyKey) throws StripeException {
+        CourseSnapshot course = order.getCourse();
+
+        PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
+                .setAmount((long) (course.getPrice() * 100)) // amount in cents
+                .setCurrency("usd")
+                .putAllMetadata(Map.of(
+                        "orderId", String.valueOf(order.getId()),
+                        "userId", String.valueOf(order.getUserId()),
+                        "courseId", String.valueOf(course.getId())
+                ))
+                .build();
+
+        RequestOptions.RequestOptionsBuilder options = RequestOptions.builder()
+                .setReadTimeout(checkoutReadTimeoutMs)
+                .setMaxNetworkRetries(checkoutMaxNetworkRetries);
+        if (idempotencyKey != null) {
+            options.setIdempotencyKey(idempotencyKey);
+        }
+
+        return stripeClient.v1().paymentIntents().create(params, options.build());
+    }
+
+    // Cursor = base64url("<createdAt millis>:<order id>") of the last row on the page
+    static String encodeCursor(Date createdAt, String id) {
+        String position = createdAt.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split(":", 2);
+            if (parts.length != 2 || parts[1].isBlank()) {
+                throw new IllegalArgumentException();
+            }
+            Long.parseLong(parts[0]);
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    // Map a page of orders, resolving all their courses and entitlements with bulk lookups
+    private List<OrderResponseDto> mapToDtos(List<Order> orders, boolean isAdmin) {
+        Set<String> courseIds = orders.stream()
+                .map(order -> order.getCourse().getId())
+                .collect(Collectors.toSet());
+        Map<String, Course> courses = courseCache.getAll(courseIds);
+
+        // Admins see every course, and a paid order grants access by itself: only the
+        // remaining rows need their user's purchases, loaded for all those users at once
+        Set<String> userIds = isAdmin ? Set.of() : orders.stream()
+                .filter(order -> order.getPaymentStatus() != PaymentStatus.SUCCESS)
+                .map(Order::getUserId)
+                .collect(Collectors.toSet());
+        Map<String, Set<String>> purchased = userIds.isEmpty() ? Map.of() : entitlementService.purchasedCoursesOf(userIds);
+
+        return orders.stream()
+                .map(order -> mapToDto(order,
+                        isAdmin || order.getPaymentStatus() == PaymentStatus.SUCCESS
+                                || purchased.getOrDefault(order.getUserId(), Set.of()).contains(order.getCourse().getId()),
+                        courses.get(order.getCourse().getId())))
+                .collect(Collectors.toList());
+    }
+
     private OrderResponseDto mapToDto(Order order, boolean isAdmin) {
-        boolean hasAccess = isAdmin || order.getPaymentStatus() == PaymentStatus.SUCCESS;
+        boolean hasAccess = isAdmin
+                || order.getPaymentStatus() == PaymentStatus.SUCCESS
+                || entitlementService.hasPurchased(order.getUserId(), order.getCourse().getId());
+        return mapToDto(order, hasAccess, courseCache.get(order.getCourse().getId()));
+    }
+
+    // ✅ Mapper utility; hasAccess (role & payment checks) decides whether the content URL is shown.
+    // Title and price come from the order's snapshot; the rest from the current course (null if it was deleted).
+    private OrderResponseDto mapToDto(Order order, boolean hasAccess, Course current) {
+        CourseSnapshot snapshot = order.getCourse();
 
-        Course course = order.getCourse();
         Course safeCourse = new Course(
-                course.getId(),
-                course.getTitle(),
-                course.getDescription(),
-                course.getPrice(),
-                hasAccess ? course.getContentUrl() : null,
-                course.getImageUrl()
+                snapshot.getId(),
+                snapshot.getTitle(),
+                current == null ? null : current.getDescription(),
+                snapshot.getPrice(),
+                hasAccess && current != null ? current.getContentUrl() : null,
+                current == null ? null : current.getImageUrl(),
+                snapshot.getVersion()
         );
 
         return OrderResponseDto.builder()
@@ -0,0 +1,132 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.exception.ServiceBusyException;
+import com.app.lurnityBackend.repository.UserRepo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt on a small dedicated pool instead of the Tomcat request threads.
+ * <p>
+ * BCrypt is deliberately CPU-bound, so a login storm used to occupy every core and starve
+ * the catalog and checkout endpoints. Here at most {@code threads} hashes run at once; once
+ * the queue is full too, callers get 503 + Retry-After instead of waiting in an unbounded line.
+ */
+@Service
+public class PasswordHashingService implements DisposableBean {
+
+    private final PasswordEncoder passwordEncoder;
+    private final UserRepo userRepo;
+    private final ThreadPoolTaskExecutor executor;
+    private final Timer queueWait;
+    private final Timer encodeTime;
+    private final Timer matchTime;
+
+    // Hash of a random password at the current cost factor, checked when the account doesn't exist
+    private final String unknownUserHash;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  UserRepo userRepo,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${security.password.executor.threads:0}") int threads,
+                                  @Value("${security.password.executor.queue-capacity:100}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.userRepo = userRepo;
+        this.unknownUserHash = passwordEncoder.encode(UUID.randomUUID().toString());
+
+        // Default: half the cores, so hashing can never take the whole machine
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.initialize();
+
+        Gauge.builder("password.hash.queue.depth", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Password hashes waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Password hashes currently running")
+                .register(meterRegistry);
+        queueWait = Timer.builder("password.hash.queue.wait")
+                .description("Time a hash spent queued before a worker picked it up")
+                .register(meterRegistry);
+        encodeTime = Timer.builder("password.hash.duration")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        matchTime = Timer.builder("password.hash.duration")
+                .tag("operation", "match")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(encodeTime, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(matchTime, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Login attempt for an email with no account: spend the same BCrypt work on the same pool
+     * as a real check, so the response time doesn't tell which emails are registered.
+     * Always false.
+     */
+    public CompletableFuture<Boolean> matchesUnknownUser(String rawPassword) {
+        return submit(matchTime, () -> {
+            passwordEncoder.matches(rawPassword, unknownUserHash);
+            return false;
+        });
+    }
+
+    /**
+     * After a successful login: if the stored hash is weaker than the current cost factor,
+     * re-hash the password in the background and store it with a targeted update.
+     * Best effort, the login never waits for it; if we are busy the next login tries again.
+     */
+    public void upgradeIfNeeded(String userId, String rawPassword, String encodedPassword) {
+        if (!passwordEncoder.upgradeEncoding(encodedPassword)) {
+            return;
+        }
+        try {
+            encode(rawPassword).thenAccept(upgraded -> userRepo.updatePasswordHash(userId, encodedPassword, upgraded));
+        } catch (ServiceBusyException e) {
+            // skip, not worth shedding a real request for
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> hash) {
+        long submittedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return hash.get();
+                } finally {
+                    timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            }, executor);
+        } catch (TaskRejectedException e) {
+            throw new ServiceBusyException("Too many sign-ins right now, please try again shortly", 2);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -4,65 +4,105 @@ import com.app.lurnityBackend.model.Order;
 import com.app.lurnityBackend.model.PaymentStatus;
 import com.app.lurnityBackend.repository.OrderRepository;
 import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Charge;
 import com.stripe.model.Event;
 import com.stripe.model.PaymentIntent;
+import com.stripe.net.ApiResource;
 import com.stripe.net.Webhook;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+import java.util.Optional;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class StripeWebhookService {
 
     private final OrderRepository orderRepository;
+    private final EntitlementService entitlementService;
 
     @Value("${stripe.webhook.secret}")
     private String endpointSecret;
 
     /**
-     * Handle incoming webhook payload from Stripe
+     * Verify the Stripe signature and parse the event. Cheap enough to run on the request thread.
+     * A forged or mangled delivery surfaces as SignatureVerificationException (or a Gson
+     * JsonParseException for a signed but unparseable body) so the caller can tell it from
+     * a failure on our side.
      */
-    public void handleWebhook(String payload, String sigHeader) {
-        Event event;
-        try {
-            // ✅ Verify event with signature
-            event = Webhook.constructEvent(payload, sigHeader, endpointSecret);
-        } catch (SignatureVerificationException e) {
-            throw new RuntimeException("⚠️ Invalid Stripe signature: " + e.getMessage(), e);
-        }
+    public Event verify(String payload, String sigHeader) throws SignatureVerificationException {
+        // ✅ Verify event with signature
+        return Webhook.constructEvent(payload, sigHeader, endpointSecret);
+    }
+
+    /**
+     * Apply a queued (already verified) event. Called from the webhook worker pool;
+     * throwing makes the queue retry the event later.
+     */
+    public void process(String payload) {
+        Event event = ApiResource.GSON.fromJson(payload, Event.class);
 
         switch (event.getType()) {
             case "payment_intent.succeeded" -> {
                 PaymentIntent paymentIntent = (PaymentIntent) event.getDataObjectDeserializer()
                         .getObject().orElseThrow();
-                updateOrderStatus(paymentIntent, PaymentStatus.SUCCESS);
+                updateOrderStatus(paymentIntent.getId(), orderIdOf(paymentIntent.getMetadata()),
+                        PaymentStatus.SUCCESS, event.getCreated());
             }
             case "payment_intent.payment_failed" -> {
                 PaymentIntent paymentIntent = (PaymentIntent) event.getDataObjectDeserializer()
                         .getObject().orElseThrow();
-                updateOrderStatus(paymentIntent, PaymentStatus.FAILED);
+                updateOrderStatus(paymentIntent.getId(), orderIdOf(paymentIntent.getMetadata()),
+                        PaymentStatus.FAILED, event.getCreated());
             }
-            default -> System.out.println("Unhandled event type: " + event.getType());
+            case "charge.refunded" -> {
+                Charge charge = (Charge) event.getDataObjectDeserializer()
+                        .getObject().orElseThrow();
+                // Partial refunds keep the course; only a full refund revokes it
+                if (Boolean.TRUE.equals(charge.getRefunded()) && charge.getPaymentIntent() != null) {
+                    // Charges don't inherit the intent's metadata; a refunded order was paid, so it exists
+                    updateOrderStatus(charge.getPaymentIntent(), null, PaymentStatus.REFUNDED, event.getCreated());
+                }
+            }
+            default -> log.debug("Unhandled event type: {}", event.getType());
         }
     }
 
-    private void updateOrderStatus(PaymentIntent paymentIntent, PaymentStatus status) {
-        // retrieve your metadata (you set it when creating PaymentIntent)
-        String orderId = paymentIntent.getMetadata().get("orderId");
+    void updateOrderStatus(String paymentIntentId, String orderId, PaymentStatus status, long eventCreated) {
+        // One indexed, conditional findAndModify on paymentId: no read of the whole order, no lost updates
+        Optional<Order> updated = orderRepository.transitionByPaymentId(paymentIntentId, status, eventCreated);
 
-        if (orderId == null) {
-            System.err.println("⚠️ Webhook received PaymentIntent without orderId metadata");
-            return;
+        if (updated.isEmpty()) {
+            if (orderRepository.existsByAnyPaymentId(paymentIntentId)) {
+                // Already in that state, an illegal backwards move, or an older event
+                log.info("Ignoring {} event for PaymentIntent {}", status, paymentIntentId);
+                return;
+            }
+            if (orderId == null) {
+                // Not opened by checkout (no orderId metadata): nothing to update, and retrying won't change that
+                log.info("PaymentIntent {} belongs to no order, acknowledging", paymentIntentId);
+                return;
+            }
+            // The intent is created before its order is inserted: let the queue retry until it is visible
+            throw new RuntimeException("No order " + orderId + " for PaymentIntent: " + paymentIntentId);
         }
 
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+        // Keep the in-memory entitlements in step with the payment outcome
+        Order order = updated.get();
+        if (status == PaymentStatus.SUCCESS) {
+            entitlementService.grant(order.getUserId(), order.getCourse().getId());
+        } else if (status == PaymentStatus.FAILED || status == PaymentStatus.REFUNDED) {
+            entitlementService.evict(order.getUserId());
+        }
 
-        order.setPaymentStatus(status);
-        order.setPaymentId(paymentIntent.getId());
-        orderRepository.save(order);
+        log.info("Order {} updated to {}", order.getId(), status);
+    }
 
-        System.out.println("✅ Order " + orderId + " updated to " + status);
+    private static String orderIdOf(Map<String, String> metadata) {
+        return metadata == null ? null : metadata.get("orderId");
     }
 }
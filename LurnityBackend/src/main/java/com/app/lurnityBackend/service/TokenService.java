@@ -5,68 +5,114 @@ import com.app.lurnityBackend.model.User;
 import com.app.lurnityBackend.repository.RefreshTokenRepository;
 import com.app.lurnityBackend.repository.UserRepo;
 import com.app.lurnityBackend.security.JwtUtils;
+import com.app.lurnityBackend.security.TokenHashing;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class TokenService {
 
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Duration REFRESH_TOKEN_TTL = Duration.ofDays(7);
+
     private final RefreshTokenRepository refreshTokenRepository;
     private final UserRepo userRepo;
     private final JwtUtils jwtUtils;
 
-    // Create new refresh token
-    public String createRefreshToken(String userId) {
-        String token = UUID.randomUUID().toString();
+    // How long a refresh token's email/role snapshot is trusted before the user is re-read.
+    // Defaults to the access token lifetime (JwtUtils, 3 days): an access token already carries
+    // its role that long, so re-reading sooner wouldn't make a role change or deletion land earlier.
+    // Logout-all doesn't wait for this: it deletes the refresh tokens outright.
+    @Value("${security.refresh.user-recheck:3d}")
+    private Duration userRecheckInterval;
 
-        RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setUserId(userId);
-        refreshToken.setToken(token);
-        refreshToken.setExpiryDate(Instant.now().plus(7, ChronoUnit.DAYS));
-
-        refreshTokenRepository.save(refreshToken);
+    // A fresh access token plus the refresh token that replaced the one just used
+    public record TokenPair(String accessToken, String refreshToken) {
+    }
 
+    // Create new refresh token (only its hash is stored)
+    public String createRefreshToken(User user) {
+        String token = newToken();
+        refreshTokenRepository.save(newRefreshToken(user.getId(), user.getEmail(), String.valueOf(user.getRole()), token));
         return token;
     }
 
     // ------------------- REFRESH ACCESS TOKEN -------------------
-    public String refreshAccessToken(String refreshToken) {
-        RefreshToken token = refreshTokenRepository.findByToken(refreshToken)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid refresh token"));
-
-        if (token.getExpiryDate().isBefore(Instant.now())) {
-            refreshTokenRepository.delete(token);
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Refresh token expired");
+    // One indexed findAndModify: validates the old refresh token, rotates it and returns
+    // the email/role snapshot needed for the new access token. The user is only loaded
+    // when that snapshot is older than the recheck interval.
+    // The new token inherits the old one's expiry: a session lasts REFRESH_TOKEN_TTL from
+    // login, however often it is refreshed.
+    public TokenPair refreshAccessToken(String refreshToken) {
+        if (refreshToken == null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid refresh token");
         }
 
-        // Directly fetch user by ID
-        User user = userRepo.findById(token.getUserId())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-
-        return jwtUtils.generateToken(user.getEmail(), String.valueOf(user.getRole()));
-    }
-
+        String newToken = newToken();
+        String newTokenHash = TokenHashing.sha256(newToken);
+        Instant now = Instant.now();
+        RefreshToken used = refreshTokenRepository.rotate(TokenHashing.sha256(refreshToken), newTokenHash, now)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid or expired refresh token"));
+
+        String email = used.getEmail();
+        String role = used.getRole();
+        if (used.getSnapshotAt() == null || used.getSnapshotAt().isBefore(now.minus(userRecheckInterval))) {
+            Optional<User> user = userRepo.findById(used.getUserId());
+            if (user.isEmpty()) {
+                // Account is gone: the session ends here
+                refreshTokenRepository.deleteByTokenHash(newTokenHash);
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid or expired refresh token");
+            }
+            email = user.get().getEmail();
+            role = String.valueOf(user.get().getRole());
+            refreshTokenRepository.updateSnapshot(newTokenHash, email, role, now);
+        }
 
-    // Find refresh token
-    public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+        String accessToken = jwtUtils.generateToken(used.getUserId(), email, role);
+        return new TokenPair(accessToken, newToken);
     }
 
     // Delete a single token (logout from one device)
     public void deleteByToken(String token) {
-        refreshTokenRepository.deleteByToken(token);
+        if (token == null) {
+            return;
+        }
+        refreshTokenRepository.deleteByTokenHash(TokenHashing.sha256(token));
     }
 
     // Delete all tokens for a user (logout everywhere)
     public void deleteAllByUserId(String userId) {
+        // A null id would turn into a query matching nothing, or worse, everything
+        Assert.hasText(userId, "userId is required");
         refreshTokenRepository.deleteAllByUserId(userId);
     }
+
+    private static RefreshToken newRefreshToken(String userId, String email, String role, String token) {
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setUserId(userId);
+        refreshToken.setTokenHash(TokenHashing.sha256(token));
+        refreshToken.setExpiryDate(Instant.now().plus(REFRESH_TOKEN_TTL));
+        refreshToken.setEmail(email);
+        refreshToken.setRole(role);
+        refreshToken.setSnapshotAt(Instant.now());
+        return refreshToken;
+    }
+
+    // 256 random bits, URL-safe
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
 }
@@ -0,0 +1,207 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.model.WebhookEvent;
+import com.app.lurnityBackend.model.WebhookEventStatus;
+import com.app.lurnityBackend.repository.WebhookEventRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable, Mongo-backed queue between the Stripe webhook endpoint and order updates.
+ * <p>
+ * The endpoint only verifies the signature and inserts the raw event, so Stripe gets its
+ * 200 in a few milliseconds even during a sale. A poller claims due events in batches
+ * (atomically, so several nodes can share the queue) and hands them to a bounded worker
+ * pool. Failed events are retried with exponential backoff and parked as FAILED after
+ * the last attempt.
+ */
+@Slf4j
+@Service
+public class WebhookEventQueue implements DisposableBean {
+
+    private final WebhookEventRepository repository;
+    private final StripeWebhookService webhookService;
+    private final ThreadPoolTaskExecutor workers;
+
+    private final int batchSize;
+    private final int queueCapacity;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration retention;
+
+    // Recently seen event ids: redeliveries are dropped here without touching MongoDB
+    private final Cache<String, Boolean> recentEventIds;
+
+    private final AtomicLong depth = new AtomicLong();
+    private final Timer processingLag;
+    private final Counter retries;
+    private final Counter failures;
+
+    public WebhookEventQueue(WebhookEventRepository repository,
+                             StripeWebhookService webhookService,
+                             MeterRegistry meterRegistry,
+                             @Value("${stripe.webhook.queue.workers:4}") int workerCount,
+                             @Value("${stripe.webhook.queue.batch-size:50}") int batchSize,
+                             @Value("${stripe.webhook.queue.max-attempts:8}") int maxAttempts,
+                             @Value("${stripe.webhook.queue.lease:2m}") Duration lease,
+                             @Value("${stripe.webhook.dedup.retention:30d}") Duration retention,
+                             @Value("${stripe.webhook.dedup.max-recent:100000}") long maxRecent) {
+        this.repository = repository;
+        this.webhookService = webhookService;
+        this.batchSize = batchSize;
+        this.queueCapacity = batchSize * 2;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.retention = retention;
+
+        recentEventIds = Caffeine.newBuilder()
+                .maximumSize(maxRecent)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recentEventIds, "stripe-webhook-dedup");
+
+        workers = new ThreadPoolTaskExecutor();
+        workers.setCorePoolSize(workerCount);
+        workers.setMaxPoolSize(workerCount);
+        workers.setQueueCapacity(queueCapacity);
+        workers.setThreadNamePrefix("stripe-webhook-");
+        workers.initialize();
+
+        Gauge.builder("stripe.webhook.queue.depth", depth, AtomicLong::get)
+                .description("Webhook events waiting to be processed (PENDING + PROCESSING)")
+                .register(meterRegistry);
+        processingLag = Timer.builder("stripe.webhook.processing.lag")
+                .description("Time from receiving a webhook to finishing its processing")
+                .register(meterRegistry);
+        retries = Counter.builder("stripe.webhook.retries")
+                .description("Webhook processing attempts that failed and were rescheduled")
+                .register(meterRegistry);
+        failures = Counter.builder("stripe.webhook.failed")
+                .description("Webhook events given up on after the last attempt")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Verify the signature and persist the raw event. Redeliveries are dropped by the
+     * in-memory LRU first, then by the unique event id in MongoDB (other nodes, restarts).
+     */
+    public void enqueue(String payload, String sigHeader) throws SignatureVerificationException {
+        Event event = webhookService.verify(payload, sigHeader);
+        if (recentEventIds.getIfPresent(event.getId()) != null) {
+            return;
+        }
+
+        Date now = new Date();
+
+        try {
+            repository.insert(WebhookEvent.builder()
+                    .id(event.getId())
+                    .type(event.getType())
+                    .payload(payload)
+                    .status(WebhookEventStatus.PENDING)
+                    .attempts(0)
+                    .receivedAt(now)
+                    .nextAttemptAt(now)
+                    .expireAt(Date.from(now.toInstant().plus(retention)))
+                    .build());
+        } catch (DuplicateKeyException e) {
+            // Already queued or processed, nothing to do
+        }
+        recentEventIds.put(event.getId(), Boolean.TRUE);
+    }
+
+    // Claim up to one batch of due events and hand them to the workers
+    @Scheduled(fixedDelayString = "${stripe.webhook.queue.poll-interval-ms:500}")
+    public void poll() {
+        int capacity = Math.min(batchSize, queueCapacity - workers.getQueueSize());
+        if (capacity <= 0) {
+            return;
+        }
+
+        // The whole batch shares one lease token; each event is still fenced by its own id
+        Date now = new Date();
+        String leaseToken = UUID.randomUUID().toString();
+        List<WebhookEvent> claimed = repository.claimBatch(now, Date.from(now.toInstant().plus(lease)), leaseToken, capacity);
+
+        for (int i = 0; i < claimed.size(); i++) {
+            WebhookEvent event = claimed.get(i);
+            try {
+                workers.execute(() -> process(event));
+            } catch (TaskRejectedException e) {
+                // Never reached a worker: give this and the rest back without spending an attempt
+                repository.release(claimed.subList(i, claimed.size()).stream().map(WebhookEvent::getId).toList(),
+                        leaseToken, now);
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stripe.webhook.queue.depth-refresh-ms:5000}")
+    public void refreshDepth() {
+        depth.set(repository.countByStatusIn(List.of(WebhookEventStatus.PENDING, WebhookEventStatus.PROCESSING)));
+    }
+
+    private void process(WebhookEvent event) {
+        String leaseToken = event.getLeaseToken();
+        boolean stillLeased;
+        try {
+            webhookService.process(event.getPayload());
+            stillLeased = repository.markDone(event.getId(), leaseToken, new Date());
+            processingLag.record(Duration.between(event.getReceivedAt().toInstant(), Instant.now()));
+        } catch (Exception e) {
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+
+            if (event.getAttempts() >= maxAttempts) {
+                stillLeased = repository.markFailed(event.getId(), leaseToken, error);
+                if (stillLeased) {
+                    failures.increment();
+                    log.error("Webhook {} failed permanently: {}", event.getId(), error);
+                }
+            } else {
+                stillLeased = repository.markRetry(event.getId(), leaseToken,
+                        Date.from(Instant.now().plus(backoff(event.getAttempts()))), error);
+                if (stillLeased) {
+                    retries.increment();
+                }
+            }
+        }
+
+        if (!stillLeased) {
+            // Took longer than the lease and another worker re-claimed the event: its outcome wins
+            log.warn("Lease on webhook {} expired before it finished", event.getId());
+        }
+    }
+
+    // 2s, 4s, 8s ... capped at 5 minutes
+    private Duration backoff(int attempts) {
+        long seconds = 1L << Math.min(attempts, 8);
+        return Duration.ofSeconds(Math.min(seconds, 300));
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,52 @@
+package com.app.lurnityBackend.controller;
+
+import com.app.lurnityBackend.service.WebhookEventQueue;
+import com.stripe.exception.SignatureVerificationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class StripeWebhookControllerTest {
+
+    private WebhookEventQueue queue;
+    private StripeWebhookController controller;
+
+    @BeforeEach
+    void setUp() {
+        queue = mock(WebhookEventQueue.class);
+        controller = new StripeWebhookController(queue);
+    }
+
+    @Test
+    void queuedEventIsAcknowledged() {
+        assertEquals(HttpStatus.OK, controller.handleStripeWebhook("{}", "t=1,v1=sig").getStatusCode());
+    }
+
+    @Test
+    void badSignatureIsRejectedWithoutDetails() throws Exception {
+        doThrow(new SignatureVerificationException("No signatures found matching the expected signature", "t=1,v1=sig"))
+                .when(queue).enqueue("{}", "t=1,v1=sig");
+
+        ResponseEntity<String> response = controller.handleStripeWebhook("{}", "t=1,v1=sig");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid webhook", response.getBody());
+    }
+
+    @Test
+    void storageFailureAsksStripeToRedeliver() throws Exception {
+        doThrow(new DataAccessResourceFailureException("Timed out after 30000 ms while waiting for a server"))
+                .when(queue).enqueue("{}", "t=1,v1=sig");
+
+        ResponseEntity<String> response = controller.handleStripeWebhook("{}", "t=1,v1=sig");
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Webhook could not be stored", response.getBody());
+    }
+}
@@ -0,0 +1,36 @@
+package com.app.lurnityBackend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentStatusTest {
+
+    @Test
+    void successFollowsPendingOrAFailedAttempt() {
+        assertEquals(List.of(PaymentStatus.PENDING, PaymentStatus.FAILED), PaymentStatus.SUCCESS.webhookPredecessors());
+    }
+
+    @Test
+    void failureOnlyFollowsPending() {
+        assertEquals(List.of(PaymentStatus.PENDING), PaymentStatus.FAILED.webhookPredecessors());
+    }
+
+    @Test
+    void refundOnlyFollowsSuccess() {
+        assertEquals(List.of(PaymentStatus.SUCCESS), PaymentStatus.REFUNDED.webhookPredecessors());
+    }
+
+    @Test
+    void ordersNeverMoveBackwards() {
+        // A late payment_failed must not undo a success, and nothing reopens an order
+        assertFalse(PaymentStatus.FAILED.webhookPredecessors().contains(PaymentStatus.SUCCESS));
+        assertFalse(PaymentStatus.SUCCESS.webhookPredecessors().contains(PaymentStatus.REFUNDED));
+        assertTrue(PaymentStatus.PENDING.webhookPredecessors().isEmpty());
+        assertTrue(PaymentStatus.CANCELLED.webhookPredecessors().isEmpty());
+    }
+}
@@ -0,0 +1,44 @@
+package com.app.lurnityBackend.repository;
+
+import com.app.lurnityBackend.model.Order;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.repository.query.parser.PartTree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderRepositoryIndexTest {
+
+    private final MongoMappingContext mappingContext = new MongoMappingContext();
+
+    @Test
+    void duplicatePurchaseCheckIsOneIndexProbe() {
+        PartTree query = new PartTree("existsByUserIdAndCourseIdAndPaymentStatus", Order.class);
+        List<String> queried = query.getParts().stream()
+                .map(part -> mappingContext.getPersistentPropertyPath(part.getProperty())
+                        .toDotPath(MongoPersistentProperty::getFieldName))
+                .toList();
+
+        assertTrue(query.isExistsProjection());
+        assertTrue(indexKeys().stream().anyMatch(keys -> keys.size() >= queried.size()
+                        && keys.subList(0, queried.size()).equals(queried)),
+                "no compound index on orders starts with " + queried);
+    }
+
+    // Key fields of every index declared on Order, in index order
+    private List<List<String>> indexKeys() {
+        List<List<String>> indexes = new ArrayList<>();
+        for (IndexDefinition index : IndexResolver.create(mappingContext).resolveIndexFor(Order.class)) {
+            Document keys = index.getIndexKeys();
+            indexes.add(new ArrayList<>(keys.keySet()));
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,76 @@
+package com.app.lurnityBackend.security;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CachedBodyRequestTest {
+
+    @Test
+    void readListenerReceivesTheWholeBodyThenCompletes() throws IOException {
+        CachedBodyRequest request = new CachedBodyRequest(new MockHttpServletRequest(),
+                "{\"email\":\"a@b.c\"}".getBytes(StandardCharsets.UTF_8));
+        ServletInputStream in = request.getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<>();
+
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add("data");
+                byte[] buffer = new byte[8];
+                while (in.isReady() && !in.isFinished()) {
+                    int n = in.read(buffer, 0, buffer.length);
+                    read.write(buffer, 0, n);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        assertEquals(List.of("data", "done"), events);
+        assertEquals("{\"email\":\"a@b.c\"}", read.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void listenerFailureIsReportedToOnError() {
+        CachedBodyRequest request = new CachedBodyRequest(new MockHttpServletRequest(), new byte[]{1});
+        List<String> events = new ArrayList<>();
+
+        request.getInputStream().setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                throw new IOException("client went away");
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add(t.getMessage());
+            }
+        });
+
+        assertEquals(List.of("client went away"), events);
+    }
+}
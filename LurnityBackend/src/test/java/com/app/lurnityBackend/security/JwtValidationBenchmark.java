@@ -0,0 +1,90 @@
+package com.app.lurnityBackend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token in JwtAuthenticationFilter.
+ * <p>
+ * threeParses is what the filter used to do (email, role and validity each from a freshly
+ * built parser, so three signature checks); parseOnce is JwtUtils.parseToken; cachedParse
+ * is the VerifiedTokenCache hit the filter takes for a token it has already seen.
+ * Run with the main method (after mvn test-compile), or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private JwtUtils jwtUtils;
+    private VerifiedTokenCache verifiedTokenCache;
+    private Key verificationKey;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        // No configured keys: the ring falls back to a random HS512 key, like a local run
+        JwtKeyRing keyRing = new JwtKeyRing(new JwtKeyRingProperties());
+        jwtUtils = new JwtUtils(keyRing);
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtils, new SimpleMeterRegistry(), true,
+                10_000, Duration.ofMinutes(5));
+        verificationKey = keyRing.activeKey().verificationKey();
+        token = jwtUtils.generateToken("64f0c0ffee0000000000beef", "bench@lurnity.app", "USER");
+        verifiedTokenCache.parseToken(token); // warm the cache entry cachedParse reads
+    }
+
+    @Benchmark
+    public void threeParses(Blackhole blackhole) {
+        blackhole.consume(legacyParse().getSubject());
+        blackhole.consume(legacyParse().get("role", String.class));
+        blackhole.consume(legacyParse().getExpiration());
+    }
+
+    @Benchmark
+    public Optional<JwtClaims> parseOnce() {
+        return jwtUtils.parseToken(token);
+    }
+
+    @Benchmark
+    public Optional<JwtClaims> cachedParse() {
+        return verifiedTokenCache.parseToken(token);
+    }
+
+    // The old getEmailFromToken / getRoleFromToken / validateToken: new parser, full verification
+    private Claims legacyParse() {
+        return Jwts.parserBuilder()
+                .setSigningKey(verificationKey)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtValidationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
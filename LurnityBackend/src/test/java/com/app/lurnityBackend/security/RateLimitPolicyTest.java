@@ -0,0 +1,75 @@
+package com.app.lurnityBackend.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitPolicyTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    // 5 per minute: one token every 12 seconds, burst of 5
+    private final RateLimitPolicy policy = new RateLimitPolicy("test", 5, Duration.ofMinutes(1));
+
+    @Test
+    void allowsTheWholeBurstAtOnce() {
+        long now = 1_000 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, policy.tryAcquire("a", now), "request " + i);
+        }
+        assertTrue(policy.tryAcquire("a", now) > 0);
+    }
+
+    @Test
+    void rejectionReportsTheWaitAndConsumesNothing() {
+        long now = 1_000 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            policy.tryAcquire("a", now);
+        }
+
+        assertEquals(12 * SECOND, policy.tryAcquire("a", now));
+        // Being rejected again does not push the wait further out
+        assertEquals(12 * SECOND, policy.tryAcquire("a", now));
+        assertEquals(2 * SECOND, policy.tryAcquire("a", now + 10 * SECOND));
+    }
+
+    @Test
+    void refillsOneTokenPerEmissionInterval() {
+        long now = 1_000 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            policy.tryAcquire("a", now);
+        }
+
+        long later = now + 12 * SECOND;
+        assertEquals(0, policy.tryAcquire("a", later));
+        assertTrue(policy.tryAcquire("a", later) > 0);
+    }
+
+    @Test
+    void keysHaveIndependentBuckets() {
+        long now = 1_000 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            policy.tryAcquire("a", now);
+        }
+
+        assertTrue(policy.tryAcquire("a", now) > 0);
+        assertEquals(0, policy.tryAcquire("b", now));
+    }
+
+    @Test
+    void evictingIdleBucketsDoesNotChangeTheOutcome() {
+        long now = 1_000 * SECOND;
+        policy.tryAcquire("a", now);
+
+        // Long after the bucket refilled it is dropped, and a new one starts full
+        long later = now + 120 * SECOND;
+        policy.evictIdle(later);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, policy.tryAcquire("a", later), "request " + i);
+        }
+        assertTrue(policy.tryAcquire("a", later) > 0);
+    }
+}
@@ -0,0 +1,57 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.dto.LoginRequest;
+import com.app.lurnityBackend.repository.UserRepo;
+import com.app.lurnityBackend.security.JwtUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuthServiceLoginTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingService passwordHashingService;
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        UserRepo userRepo = mock(UserRepo.class);
+        meterRegistry = new SimpleMeterRegistry();
+        passwordHashingService = new PasswordHashingService(new BCryptPasswordEncoder(4), userRepo, meterRegistry, 1, 10);
+        authService = new AuthService(userRepo, passwordHashingService, mock(JwtUtils.class), mock(TokenService.class),
+                Runnable::run);
+
+        when(userRepo.findByEmail("nobody@lurnity.app")).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.destroy();
+    }
+
+    @Test
+    void unknownEmailIsRejectedAfterTheSameBcryptWork() {
+        LoginRequest request = new LoginRequest();
+        request.setEmail("nobody@lurnity.app");
+        request.setPassword("hunter22");
+
+        CompletionException e = assertThrows(CompletionException.class, () -> authService.login(request).join());
+
+        assertTrue(e.getCause() instanceof ResponseStatusException);
+        assertEquals(HttpStatus.UNAUTHORIZED, ((ResponseStatusException) e.getCause()).getStatusCode());
+        assertEquals(1, meterRegistry.get("password.hash.duration").tag("operation", "match").timer().count());
+    }
+}
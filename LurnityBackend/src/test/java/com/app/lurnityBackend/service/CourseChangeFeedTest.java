@@ -0,0 +1,106 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.model.CourseChange;
+import com.app.lurnityBackend.repository.CourseChangeRepository;
+import com.app.lurnityBackend.repository.CourseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CourseChangeFeedTest {
+
+    private CourseChangeRepository changeRepository;
+    private CourseRepository courseRepository;
+    private CourseCache courseCache;
+    private CourseCatalogCache catalogCache;
+    private CourseSearchIndex searchIndex;
+    private CourseChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        changeRepository = mock(CourseChangeRepository.class);
+        courseRepository = mock(CourseRepository.class);
+        courseCache = mock(CourseCache.class);
+        catalogCache = mock(CourseCatalogCache.class);
+        searchIndex = new CourseSearchIndex(courseRepository);
+        feed = new CourseChangeFeed(changeRepository, courseRepository, courseCache, catalogCache, searchIndex,
+                Duration.ofSeconds(10));
+        feed.start();
+    }
+
+    @Test
+    void editOnAnotherNodeIsEvictedAndReindexed() {
+        searchIndex.index(course("c1", "Kotlin"));
+        when(changeRepository.findByChangedAtAfter(any())).thenReturn(List.of(change("m1", "c1")));
+        when(courseRepository.findById("c1")).thenReturn(Optional.of(course("c1", "Rust")));
+
+        feed.refresh();
+
+        verify(courseCache).invalidate("c1");
+        verify(catalogCache).invalidate();
+        assertTrue(searchIndex.search("kotlin", 10).isEmpty());
+        assertEquals(1, searchIndex.search("rust", 10).size());
+    }
+
+    @Test
+    void deleteOnAnotherNodeDropsTheCourseFromSearch() {
+        searchIndex.index(course("c1", "Kotlin"));
+        when(changeRepository.findByChangedAtAfter(any())).thenReturn(List.of(change("m1", "c1")));
+        when(courseRepository.findById("c1")).thenReturn(Optional.empty());
+
+        feed.refresh();
+
+        verify(courseCache).invalidate("c1");
+        assertTrue(searchIndex.search("kotlin", 10).isEmpty());
+    }
+
+    @Test
+    void changeSeenAgainThroughTheOverlapIsAppliedOnce() {
+        when(changeRepository.findByChangedAtAfter(any())).thenReturn(List.of(change("m1", "c1")));
+
+        feed.refresh();
+        feed.refresh();
+
+        verify(courseCache, times(1)).invalidate("c1");
+        verify(catalogCache, times(1)).invalidate();
+    }
+
+    @Test
+    void ownWritesAreNotAppliedTwice() {
+        CourseChange own = change("m1", "c1");
+        when(changeRepository.insert(any(CourseChange.class))).thenReturn(own);
+        when(changeRepository.findByChangedAtAfter(any())).thenReturn(List.of(own));
+
+        feed.publish("c1");
+        feed.refresh();
+
+        verify(courseCache, never()).invalidate("c1");
+        verify(catalogCache, never()).invalidate();
+    }
+
+    private static CourseChange change(String id, String courseId) {
+        return new CourseChange(id, courseId, Instant.now());
+    }
+
+    private static Course course(String id, String title) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle(title);
+        course.setDescription("");
+        return course;
+    }
+}
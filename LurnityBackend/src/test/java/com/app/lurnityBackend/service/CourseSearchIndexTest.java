@@ -0,0 +1,137 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.repository.CourseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CourseSearchIndexTest {
+
+    private CourseRepository courseRepository;
+    private CourseSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository = mock(CourseRepository.class);
+        index = new CourseSearchIndex(courseRepository);
+    }
+
+    @Test
+    void lastWordMatchesAsPrefix() {
+        index.index(course("1", "Spring Boot", "Build web apps"));
+        index.index(course("2", "Python basics", "Scripting for beginners"));
+
+        assertEquals(List.of("1"), ids(index.search("spr", 10)));
+        assertEquals(List.of("1"), ids(index.search("Spring bo", 10)));
+    }
+
+    @Test
+    void earlierWordsMustMatchWholeTerms() {
+        index.index(course("1", "Spring Boot", "Build web apps"));
+
+        assertTrue(index.search("spr boot", 10).isEmpty());
+    }
+
+    @Test
+    void everyWordHasToMatch() {
+        index.index(course("1", "Spring Boot", "Java web apps"));
+        index.index(course("2", "Java basics", "Start here"));
+
+        assertEquals(List.of("1"), ids(index.search("java spring", 10)));
+    }
+
+    @Test
+    void titleHitsRankAboveDescriptionHits() {
+        index.index(course("1", "Cooking", "Includes a short docker primer"));
+        index.index(course("2", "Docker in practice", "Containers"));
+
+        assertEquals(List.of("2", "1"), ids(index.search("docker", 10)));
+    }
+
+    @Test
+    void wholeWordRanksAbovePrefixExpansion() {
+        index.index(course("1", "Javascript", "Frontend"));
+        index.index(course("2", "Java", "Backend"));
+
+        assertEquals(List.of("2", "1"), ids(index.search("java", 10)));
+    }
+
+    @Test
+    void searchIsCaseAndPunctuationInsensitive() {
+        index.index(course("1", "C# & .NET: the basics", "Desktop apps"));
+
+        assertEquals(List.of("1"), ids(index.search("NET", 10)));
+        assertEquals(List.of("1"), ids(index.search("the BASICS!", 10)));
+    }
+
+    @Test
+    void reindexReplacesTheOldTerms() {
+        index.index(course("1", "Kotlin", "Android"));
+        index.index(course("1", "Rust", "Systems"));
+
+        assertTrue(index.search("kotlin", 10).isEmpty());
+        assertEquals(List.of("1"), ids(index.search("rust", 10)));
+    }
+
+    @Test
+    void removedCoursesAreNotFound() {
+        index.index(course("1", "Kotlin", "Android"));
+        index.remove("1");
+
+        assertTrue(index.search("kotlin", 10).isEmpty());
+    }
+
+    @Test
+    void limitKeepsTheBestMatches() {
+        index.index(course("1", "Go", "Go go go"));
+        index.index(course("2", "Go", "Concurrency"));
+        index.index(course("3", "Intro", "A little go"));
+
+        assertEquals(List.of("1", "2"), ids(index.search("go", 2)));
+    }
+
+    @Test
+    void rebuildReplacesTheIndexWithTheDatabaseContents() {
+        index.index(course("1", "Stale", "Deleted on another node"));
+        when(courseRepository.findAll()).thenReturn(List.of(course("2", "Fresh", "From MongoDB")));
+
+        index.rebuild();
+
+        assertTrue(index.search("stale", 10).isEmpty());
+        assertEquals(List.of("2"), ids(index.search("fresh", 10)));
+    }
+
+    @Test
+    void rebuildKeepsUpdatesThatLandDuringTheDatabaseRead() {
+        // The Mongo read returns a snapshot taken before a create and a delete made on this node
+        when(courseRepository.findAll()).thenAnswer(invocation -> {
+            index.index(course("2", "Created", "While rebuilding"));
+            index.remove("1");
+            return List.of(course("1", "Deleted", "While rebuilding"));
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of("2"), ids(index.search("created", 10)));
+        assertTrue(index.search("deleted", 10).isEmpty());
+    }
+
+    private static Course course(String id, String title, String description) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle(title);
+        course.setDescription(description);
+        return course;
+    }
+
+    private static List<String> ids(List<Course> courses) {
+        return courses.stream().map(Course::getId).toList();
+    }
+}
@@ -0,0 +1,86 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.model.CourseSort;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CourseServiceCursorTest {
+
+    @Test
+    void priceCursorRoundTripsExactly() {
+        Course after = decode(course("a1", "Java", 19.99), CourseSort.PRICE);
+
+        assertEquals("a1", after.getId());
+        assertEquals(Double.valueOf(19.99), after.getPrice());
+    }
+
+    @Test
+    void titleCursorKeepsSeparatorsInTheTitle() {
+        Course after = decode(course("a1", "Spring: the good parts", 10.0), CourseSort.TITLE);
+
+        assertEquals("a1", after.getId());
+        assertEquals("Spring: the good parts", after.getTitle());
+    }
+
+    @Test
+    void nullSortValueIsDistinctFromAnEmptyOne() {
+        assertNull(decode(course("a1", null, null), CourseSort.TITLE).getTitle());
+        assertEquals("", decode(course("a1", "", null), CourseSort.TITLE).getTitle());
+        assertNull(decode(course("a1", "Java", null), CourseSort.PRICE).getPrice());
+    }
+
+    @Test
+    void newestCursorOnlyCarriesTheId() {
+        Course after = decode(course("a1", "Java", 5.0), CourseSort.NEWEST);
+
+        assertEquals("a1", after.getId());
+        assertNull(after.getTitle());
+        assertNull(after.getPrice());
+    }
+
+    @Test
+    void cursorFromAnotherSortIsRejected() {
+        String cursor = CourseService.encodeCursor(course("a1", "Java", 5.0), CourseSort.PRICE);
+
+        assertBadCursor(cursor, CourseSort.TITLE);
+    }
+
+    @Test
+    void rejectsGarbage() {
+        assertBadCursor("not base64 !!", CourseSort.PRICE);
+        assertBadCursor(encode("PRICE:a1"), CourseSort.PRICE);
+        assertBadCursor(encode("PRICE::v1.0"), CourseSort.PRICE);
+        assertBadCursor(encode("PRICE:a1:vcheap"), CourseSort.PRICE);
+    }
+
+    private static Course decode(Course last, CourseSort sort) {
+        return CourseService.decodeCursor(CourseService.encodeCursor(last, sort), sort);
+    }
+
+    private static void assertBadCursor(String cursor, CourseSort sort) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> CourseService.decodeCursor(cursor, sort));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    private static Course course(String id, String title, Double price) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle(title);
+        course.setPrice(price);
+        return course;
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,146 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.dto.CourseResponseDto;
+import com.app.lurnityBackend.dto.CourseUpdateDto;
+import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.repository.CourseRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CourseServiceUpdateTest {
+
+    private CourseRepository courseRepository;
+    private CourseSearchIndex searchIndex;
+    private CourseChangeFeed changeFeed;
+    private CourseService courseService;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository = mock(CourseRepository.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        searchIndex = new CourseSearchIndex(courseRepository);
+        changeFeed = mock(CourseChangeFeed.class);
+        courseService = new CourseService(courseRepository,
+                new CourseCache(courseRepository, meterRegistry, 100, Duration.ofMinutes(10)),
+                new CourseCatalogCache(courseRepository, new ObjectMapper(), meterRegistry, Duration.ofMinutes(5)),
+                searchIndex,
+                changeFeed);
+
+        when(courseRepository.findById("c1")).thenReturn(Optional.of(course("Spring Boot", 20.0, 3L)));
+    }
+
+    @Test
+    void patchWritesOnlyChangedFieldsAndReturnsTheNewVersion() {
+        when(courseRepository.updateFields("c1", 3L, Map.of("price", 25.0)))
+                .thenReturn(Optional.of(course("Spring Boot", 25.0, 4L)));
+
+        CourseResponseDto updated = courseService.updateCourse("c1", update("Spring Boot", 25.0, 3L), true);
+
+        assertEquals(Long.valueOf(4L), updated.getVersion());
+        assertEquals(Double.valueOf(25.0), updated.getPrice());
+        assertEquals(1, searchIndex.search("spring", 10).size());
+        verify(changeFeed).publish("c1");
+    }
+
+    @Test
+    void staleVersionIsAConflict() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> courseService.updateCourse("c1", update(null, 25.0, 2L), true));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        verify(courseRepository, never()).updateFields(anyString(), anyLong(), any());
+        verify(changeFeed, never()).publish(anyString());
+    }
+
+    @Test
+    void concurrentWriteBetweenReadAndUpdateIsAConflict() {
+        // The version matched on read, but the conditional update found it bumped already
+        when(courseRepository.updateFields("c1", 3L, Map.of("price", 25.0))).thenReturn(Optional.empty());
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> courseService.updateCourse("c1", update(null, 25.0, 3L), true));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+    }
+
+    @Test
+    void courseWithoutAVersionMatchesVersionZero() {
+        when(courseRepository.findById("c1")).thenReturn(Optional.of(course("Spring Boot", 20.0, null)));
+        when(courseRepository.updateFields("c1", 0L, Map.of("price", 25.0)))
+                .thenReturn(Optional.of(course("Spring Boot", 25.0, 1L)));
+
+        assertEquals(Long.valueOf(1L), courseService.updateCourse("c1", update(null, 25.0, 0L), true).getVersion());
+    }
+
+    @Test
+    void unchangedRequestDoesNotWrite() {
+        CourseResponseDto result = courseService.updateCourse("c1", update("Spring Boot", 20.0, 3L), true);
+
+        assertEquals(Long.valueOf(3L), result.getVersion());
+        verify(courseRepository, never()).updateFields(anyString(), anyLong(), any());
+    }
+
+    @Test
+    void versionIsRequired() {
+        assertBadRequest(update("Spring Boot", 25.0, null), true);
+    }
+
+    @Test
+    void putRequiresTitleAndPrice() {
+        assertBadRequest(update(null, 25.0, 3L), false);
+        assertBadRequest(update("Spring Boot", null, 3L), false);
+    }
+
+    @Test
+    void titleCannotBeBlanked() {
+        assertBadRequest(update("  ", null, 3L), true);
+    }
+
+    @Test
+    void priceMustBeAFiniteNonNegativeAmount() {
+        assertBadRequest(update(null, -1.0, 3L), true);
+        assertBadRequest(update(null, Double.NaN, 3L), true);
+        assertBadRequest(update(null, Double.POSITIVE_INFINITY, 3L), true);
+    }
+
+    private void assertBadRequest(CourseUpdateDto request, boolean partial) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> courseService.updateCourse("c1", request, partial));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    private static Course course(String title, Double price, Long version) {
+        Course course = new Course();
+        course.setId("c1");
+        course.setTitle(title);
+        course.setPrice(price);
+        course.setVersion(version);
+        return course;
+    }
+
+    private static CourseUpdateDto update(String title, Double price, Long version) {
+        CourseUpdateDto request = new CourseUpdateDto();
+        request.setTitle(title);
+        request.setPrice(price);
+        request.setVersion(version);
+        return request;
+    }
+}
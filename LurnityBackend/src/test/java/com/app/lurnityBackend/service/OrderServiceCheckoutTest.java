@@ -0,0 +1,184 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.dto.OrderRequestDto;
+import com.app.lurnityBackend.dto.OrderResponseDto;
+import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.model.CourseSnapshot;
+import com.app.lurnityBackend.model.Order;
+import com.app.lurnityBackend.model.PaymentStatus;
+import com.app.lurnityBackend.model.User;
+import com.app.lurnityBackend.repository.CourseRepository;
+import com.app.lurnityBackend.repository.OrderRepository;
+import com.app.lurnityBackend.repository.UserRepo;
+import com.app.lurnityBackend.security.TokenHashing;
+import com.stripe.StripeClient;
+import com.stripe.exception.IdempotencyException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCreateParams;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderServiceCheckoutTest {
+
+    private static final String KEY_HASH = TokenHashing.sha256("order-create:user-1:key-1");
+    private static final Date THREE_DAYS_AGO = Date.from(Instant.now().minus(Duration.ofDays(3)));
+
+    private OrderRepository orderRepository;
+    private CourseRepository courseRepository;
+    private StripeClient stripeClient;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        orderRepository = mock(OrderRepository.class);
+        UserRepo userRepository = mock(UserRepo.class);
+        courseRepository = mock(CourseRepository.class);
+        stripeClient = mock(StripeClient.class, RETURNS_DEEP_STUBS);
+        orderService = new OrderService(orderRepository, userRepository, courseRepository, mock(CourseCache.class),
+                mock(EntitlementService.class), stripeClient, mock(CheckoutExecutor.class),
+                mock(IdempotencyService.class));
+        ReflectionTestUtils.setField(orderService, "pendingReuseWindow", Duration.ofMinutes(30));
+
+        User user = new User();
+        user.setId("user-1");
+        user.setEmail("buyer@lurnity.app");
+        when(userRepository.findByEmail("buyer@lurnity.app")).thenReturn(Optional.of(user));
+
+        Course course = new Course("course-1", "Spring Boot", "Build web apps", 20.0, null, null, 3L);
+        when(courseRepository.findById("course-1")).thenReturn(Optional.of(course));
+
+        PaymentIntent intent = new PaymentIntent();
+        intent.setId("pi_new");
+        intent.setClientSecret("secret_new");
+        when(stripeClient.v1().paymentIntents()
+                .create(any(PaymentIntentCreateParams.class), any(RequestOptions.class))).thenReturn(intent);
+    }
+
+    @Test
+    void pendingOrderWithALiveIntentIsHandedBack() throws Exception {
+        // Created days ago, but its intent was reissued minutes ago
+        Order pending = pendingOrder(Date.from(Instant.now().minus(Duration.ofMinutes(5))));
+        when(orderRepository.findFirstByUserIdAndCourseIdAndPaymentStatusOrderByCreatedAtDesc(
+                "user-1", "course-1", PaymentStatus.PENDING)).thenReturn(Optional.of(pending));
+
+        OrderResponseDto result = orderService.createOrder("buyer@lurnity.app", request(), false, null);
+
+        assertEquals("pi_old", result.getPaymentId());
+        verify(orderRepository, never()).resetPayment(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void reopeningAStaleOrderKeepsItsCreationTime() throws Exception {
+        Order pending = pendingOrder(THREE_DAYS_AGO);
+        when(orderRepository.findFirstByUserIdAndCourseIdAndPaymentStatusOrderByCreatedAtDesc(
+                "user-1", "course-1", PaymentStatus.PENDING)).thenReturn(Optional.of(pending));
+        when(orderRepository.resetPayment(eq("order-1"), eq("pi_old"), eq("pi_new"), eq("secret_new"), any(Date.class)))
+                .thenReturn(true);
+
+        OrderResponseDto result = orderService.createOrder("buyer@lurnity.app", request(), false, null);
+
+        assertEquals("pi_new", result.getPaymentId());
+        assertEquals(THREE_DAYS_AGO, result.getCreatedAt());
+        assertTrue(pending.getPaymentIssuedAt().after(THREE_DAYS_AGO));
+    }
+
+    @Test
+    void newOrderGetsAFreshObjectIdAndRemembersTheKey() throws Exception {
+        orderService.createOrder("buyer@lurnity.app", request(), false, "key-1");
+
+        ArgumentCaptor<Order> inserted = ArgumentCaptor.forClass(Order.class);
+        verify(orderRepository).insert(inserted.capture());
+        assertTrue(ObjectId.isValid(inserted.getValue().getId()));
+        assertEquals(KEY_HASH, inserted.getValue().getIdempotencyKeyHash());
+    }
+
+    @Test
+    void replayedKeyReturnsTheOrderItCreated() throws Exception {
+        when(orderRepository.findByIdempotencyKeyHash(KEY_HASH)).thenReturn(Optional.of(pendingOrder(new Date())));
+
+        OrderResponseDto result = orderService.createOrder("buyer@lurnity.app", request(), false, "key-1");
+
+        assertEquals("order-1", result.getId());
+        verify(orderRepository, never()).insert(any(Order.class));
+    }
+
+    @Test
+    void concurrentReplayReturnsTheOrderThatWasSavedFirst() throws Exception {
+        when(orderRepository.insert(any(Order.class))).thenThrow(new DuplicateKeyException("idempotencyKeyHash"));
+        when(orderRepository.findByIdempotencyKeyHash(KEY_HASH))
+                .thenReturn(Optional.empty(), Optional.of(pendingOrder(new Date())));
+
+        OrderResponseDto result = orderService.createOrder("buyer@lurnity.app", request(), false, "key-1");
+
+        assertEquals("order-1", result.getId());
+    }
+
+    @Test
+    void keyHeldByAnAttemptThatNeverSavedGetsAFreshIntent() throws Exception {
+        PaymentIntent intent = new PaymentIntent();
+        intent.setId("pi_fresh");
+        when(stripeClient.v1().paymentIntents()
+                .create(any(PaymentIntentCreateParams.class), any(RequestOptions.class)))
+                .thenThrow(new IdempotencyException("Keys for idempotent requests can only be used with the same parameters",
+                        "req_1", null, 400))
+                .thenReturn(intent);
+
+        OrderResponseDto result = orderService.createOrder("buyer@lurnity.app", request(), false, "key-1");
+
+        assertEquals("pi_fresh", result.getPaymentId());
+        verify(orderRepository, times(2)).findByIdempotencyKeyHash(KEY_HASH);
+    }
+
+    @Test
+    void chargesThePriceStoredInMongoDb() throws Exception {
+        // Edited on another node: this node's course cache would still say 20.0
+        Course edited = new Course("course-1", "Spring Boot", "Build web apps", 35.0, null, null, 4L);
+        when(courseRepository.findById("course-1")).thenReturn(Optional.of(edited));
+
+        orderService.createOrder("buyer@lurnity.app", request(), false, null);
+
+        ArgumentCaptor<PaymentIntentCreateParams> params = ArgumentCaptor.forClass(PaymentIntentCreateParams.class);
+        verify(stripeClient.v1().paymentIntents()).create(params.capture(), any(RequestOptions.class));
+        assertEquals(Long.valueOf(3500), params.getValue().getAmount());
+    }
+
+    private static Order pendingOrder(Date paymentIssuedAt) {
+        return Order.builder()
+                .id("order-1")
+                .userId("user-1")
+                .course(new CourseSnapshot("course-1", "Spring Boot", 20.0, 3L))
+                .paymentStatus(PaymentStatus.PENDING)
+                .paymentId("pi_old")
+                .clientSecret("secret_old")
+                .createdAt(THREE_DAYS_AGO)
+                .paymentIssuedAt(paymentIssuedAt)
+                .build();
+    }
+
+    private static OrderRequestDto request() {
+        OrderRequestDto request = new OrderRequestDto();
+        request.setCourseId("course-1");
+        return request;
+    }
+}
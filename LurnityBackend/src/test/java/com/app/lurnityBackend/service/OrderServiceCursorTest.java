@@ -0,0 +1,50 @@
+package com.app.lurnityBackend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderServiceCursorTest {
+
+    @Test
+    void roundTripsCreatedAtAndId() {
+        Date createdAt = new Date(1_726_000_000_123L);
+
+        String[] position = OrderService.decodeCursor(OrderService.encodeCursor(createdAt, "66f1a2b3c4d5e6f708192a3b"));
+
+        assertEquals("1726000000123", position[0]);
+        assertEquals("66f1a2b3c4d5e6f708192a3b", position[1]);
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = OrderService.encodeCursor(new Date(Long.MAX_VALUE), "?>?>?>");
+
+        assertFalse(cursor.contains("+") || cursor.contains("/") || cursor.contains("="), cursor);
+    }
+
+    @Test
+    void rejectsGarbage() {
+        assertBadCursor("not base64 !!");
+        assertBadCursor(encode("no-separator"));
+        assertBadCursor(encode("123:"));
+        assertBadCursor(encode("yesterday:66f1a2b3c4d5e6f708192a3b"));
+    }
+
+    private static void assertBadCursor(String cursor) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> OrderService.decodeCursor(cursor));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,97 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.dto.OrderResponseDto;
+import com.app.lurnityBackend.model.Course;
+import com.app.lurnityBackend.model.CourseSnapshot;
+import com.app.lurnityBackend.model.Order;
+import com.app.lurnityBackend.model.PaymentStatus;
+import com.app.lurnityBackend.model.User;
+import com.app.lurnityBackend.repository.CourseRepository;
+import com.app.lurnityBackend.repository.OrderRepository;
+import com.app.lurnityBackend.repository.UserRepo;
+import com.stripe.StripeClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderServiceHistoryTest {
+
+    private OrderRepository orderRepository;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        UserRepo userRepository = mock(UserRepo.class);
+        CourseCache courseCache = mock(CourseCache.class);
+        EntitlementService entitlementService = new EntitlementService(orderRepository, userRepository,
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+        orderService = new OrderService(orderRepository, userRepository, mock(CourseRepository.class), courseCache,
+                entitlementService, mock(StripeClient.class), mock(CheckoutExecutor.class),
+                mock(IdempotencyService.class));
+
+        User user = new User();
+        user.setId("user-1");
+        when(userRepository.findByEmail("buyer@lurnity.app")).thenReturn(Optional.of(user));
+        when(courseCache.getAll(any())).thenReturn(Map.of(
+                "c1", course("c1"), "c2", course("c2"), "c3", course("c3")));
+    }
+
+    @Test
+    void historyLoadsTheUsersPurchasesOnceForTheWholePage() {
+        when(orderRepository.findHistoryByUserId("user-1")).thenReturn(List.of(
+                order("o1", "c1", PaymentStatus.SUCCESS),
+                order("o2", "c2", PaymentStatus.CANCELLED), // bought later through another order
+                order("o3", "c3", PaymentStatus.FAILED)));
+        when(orderRepository.findPurchasedByUserIdIn(List.of("user-1")))
+                .thenReturn(List.of(order("o1", "c1", PaymentStatus.SUCCESS), order("o4", "c2", PaymentStatus.SUCCESS)));
+
+        List<OrderResponseDto> history = orderService.getMyOrders("buyer@lurnity.app", false);
+
+        assertEquals("https://cdn.lurnity.app/c1", history.get(0).getCourse().getContentUrl());
+        assertEquals("https://cdn.lurnity.app/c2", history.get(1).getCourse().getContentUrl());
+        assertNull(history.get(2).getCourse().getContentUrl());
+        verify(orderRepository, times(1)).findPurchasedByUserIdIn(any());
+        verify(orderRepository, never()).findPurchasedByUserId(anyString());
+    }
+
+    @Test
+    void adminListingNeedsNoEntitlements() {
+        when(orderRepository.findPage(any(), any(), any(), any(), any(), any(Integer.class)))
+                .thenReturn(List.of(order("o3", "c3", PaymentStatus.FAILED)));
+
+        orderService.getAllOrders("buyer@lurnity.app", true, null, null, null, null, null);
+
+        verify(orderRepository, never()).findPurchasedByUserIdIn(any());
+    }
+
+    private static Order order(String id, String courseId, PaymentStatus status) {
+        return Order.builder()
+                .id(id)
+                .userId("user-1")
+                .course(new CourseSnapshot(courseId, "Course " + courseId, 20.0, 1L))
+                .paymentStatus(status)
+                .createdAt(new Date())
+                .build();
+    }
+
+    private static Course course(String id) {
+        return new Course(id, "Course " + id, "Description", 20.0, "https://cdn.lurnity.app/" + id, null, 1L);
+    }
+}
@@ -0,0 +1,95 @@
+package com.app.lurnityBackend.service;
+
+import com.app.lurnityBackend.model.CourseSnapshot;
+import com.app.lurnityBackend.model.Order;
+import com.app.lurnityBackend.model.PaymentStatus;
+import com.app.lurnityBackend.repository.OrderRepository;
+import com.app.lurnityBackend.repository.UserRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StripeWebhookServiceTest {
+
+    private static final long CREATED = 1_700_000_000L;
+
+    private OrderRepository orderRepository;
+    private EntitlementService entitlementService;
+    private StripeWebhookService service;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        entitlementService = new EntitlementService(orderRepository, mock(UserRepo.class),
+                new SimpleMeterRegistry(), 1_000, Duration.ofMinutes(5));
+        service = new StripeWebhookService(orderRepository, entitlementService);
+    }
+
+    @Test
+    void successGrantsTheCourse() {
+        when(orderRepository.findPurchasedByUserId("user-1")).thenReturn(List.of());
+        assertFalse(entitlementService.hasPurchased("user-1", "course-1")); // caches the empty set
+
+        when(orderRepository.transitionByPaymentId("pi_1", PaymentStatus.SUCCESS, CREATED))
+                .thenReturn(Optional.of(order("user-1", "course-1")));
+        service.updateOrderStatus("pi_1", "order-1", PaymentStatus.SUCCESS, CREATED);
+
+        assertTrue(entitlementService.hasPurchased("user-1", "course-1"));
+    }
+
+    @Test
+    void refundRevokesTheCourse() {
+        when(orderRepository.findPurchasedByUserId("user-1")).thenReturn(List.of(order("user-1", "course-1")));
+        assertTrue(entitlementService.hasPurchased("user-1", "course-1"));
+
+        when(orderRepository.transitionByPaymentId("pi_1", PaymentStatus.REFUNDED, CREATED))
+                .thenReturn(Optional.of(order("user-1", "course-1")));
+        when(orderRepository.findPurchasedByUserId("user-1")).thenReturn(List.of());
+        service.updateOrderStatus("pi_1", null, PaymentStatus.REFUNDED, CREATED);
+
+        assertFalse(entitlementService.hasPurchased("user-1", "course-1"));
+    }
+
+    @Test
+    void staleOrBackwardsEventForAKnownIntentIsIgnored() {
+        // No transition applied (older event, or e.g. FAILED after SUCCESS), but the order exists
+        when(orderRepository.existsByAnyPaymentId("pi_1")).thenReturn(true);
+        when(orderRepository.findPurchasedByUserId("user-1")).thenReturn(List.of(order("user-1", "course-1")));
+        assertTrue(entitlementService.hasPurchased("user-1", "course-1"));
+
+        service.updateOrderStatus("pi_1", "order-1", PaymentStatus.FAILED, CREATED - 10);
+
+        assertTrue(entitlementService.hasPurchased("user-1", "course-1"));
+    }
+
+    @Test
+    void intentWithoutAnOrderIsAcknowledged() {
+        // Not created by checkout: retrying would never find an order
+        service.updateOrderStatus("pi_other", null, PaymentStatus.SUCCESS, CREATED);
+    }
+
+    @Test
+    void eventThatBeatsTheOrderInsertIsRetried() {
+        // The intent is created before its order is saved, so the webhook can arrive first
+        assertThrows(RuntimeException.class,
+                () -> service.updateOrderStatus("pi_1", "order-1", PaymentStatus.SUCCESS, CREATED));
+    }
+
+    private static Order order(String userId, String courseId) {
+        Order order = new Order();
+        order.setId("order-1");
+        order.setUserId(userId);
+        order.setCourse(new CourseSnapshot(courseId, "Title", 10.0, 0L));
+        return order;
+    }
+}